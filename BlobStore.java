@@ -0,0 +1,137 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * This class keeps texts compressed outside the heap. The texts are written
+ * one after the other into direct buffers of {@value #SEGMENT_SIZE} bytes, a
+ * longer text gets a buffer of its own. A text is addressed by a handle of its
+ * buffer and position and is decompressed each time it is read. Texts are
+ * never removed.
+ * <p>
+ * Each text is headed by its stored length and its length in UTF-8, the
+ * latter negative if the text is deflated. A text is only deflated if that
+ * makes it shorter.
+ * @author Florian Mueller
+ */
+public class BlobStore {
+
+	/** size of a buffer in bytes */
+	private static final int SEGMENT_SIZE = 1 << 24;
+
+	/** size of the header of a text in bytes */
+	private static final int HEADER_SIZE = 8;
+
+	/** deflater of each thread */
+	private static final ThreadLocal<Deflater> DEFLATERS = new ThreadLocal<Deflater>() {
+		protected Deflater initialValue() {
+			return new Deflater(Deflater.BEST_SPEED, true);
+		}
+	};
+
+	/** inflater of each thread */
+	private static final ThreadLocal<Inflater> INFLATERS = new ThreadLocal<Inflater>() {
+		protected Inflater initialValue() {
+			return new Inflater(true);
+		}
+	};
+
+	/** all buffers, the current one last; replaced when a buffer is added */
+	private volatile ByteBuffer[] segments = new ByteBuffer[0];
+
+	/** position of the next text in the current buffer */
+	private int position = SEGMENT_SIZE;
+
+	/** bytes written to the buffers */
+	private long bytes;
+
+	/**
+	 * Compresses and stores a text.
+	 * @param text text to store
+	 * @return handle of the text
+	 */
+	public long put(String text) {
+		byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+		byte[] stored = raw;
+		int length = raw.length;
+		if (raw.length > HEADER_SIZE) {
+			Deflater deflater = DEFLATERS.get();
+			deflater.reset();
+			deflater.setInput(raw);
+			deflater.finish();
+			byte[] deflated = new byte[raw.length - 1];
+			int deflatedLength = deflater.deflate(deflated);
+			if (deflater.finished()) {
+				stored = deflated;
+				length = deflatedLength;
+			}
+		}
+		return this.write(stored, length, stored == raw ? raw.length : -raw.length);
+	}
+
+	/**
+	 * Reads and decompresses a text.
+	 * @param handle handle of the text
+	 * @return the text
+	 */
+	public String get(long handle) {
+		ByteBuffer segment = segments[(int) (handle >>> 32)];
+		int offset = (int) handle;
+		int length = segment.getInt(offset);
+		int rawLength = segment.getInt(offset + 4);
+		byte[] stored = new byte[length];
+		segment.get(offset + HEADER_SIZE, stored);
+		if (rawLength >= 0) {
+			return new String(stored, StandardCharsets.UTF_8);
+		}
+		byte[] raw = new byte[-rawLength];
+		Inflater inflater = INFLATERS.get();
+		inflater.reset();
+		inflater.setInput(stored);
+		try {
+			if (inflater.inflate(raw) != raw.length) {
+				throw new IllegalStateException("Error! Text is damaged.");
+			}
+		} catch (DataFormatException e) {
+			throw new IllegalStateException("Error! Text is damaged.", e);
+		}
+		return new String(raw, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns the bytes written to the buffers, headers included.
+	 * @return bytes outside the heap
+	 */
+	public synchronized long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * Writes a stored text with its header behind the last one.
+	 * @param stored stored text
+	 * @param length length of the stored text
+	 * @param rawLength length of the text in UTF-8, negative if deflated
+	 * @return handle of the text
+	 */
+	private synchronized long write(byte[] stored, int length, int rawLength) {
+		int size = HEADER_SIZE + length;
+		if (position + size > SEGMENT_SIZE) {
+			ByteBuffer[] grown = Arrays.copyOf(segments, segments.length + 1);
+			grown[segments.length] = ByteBuffer.allocateDirect(Math.max(size, SEGMENT_SIZE));
+			segments = grown;
+			position = 0;
+		}
+		ByteBuffer segment = segments[segments.length - 1];
+		segment.putInt(position, length);
+		segment.putInt(position + 4, rawLength);
+		segment.put(position + HEADER_SIZE, stored, 0, length);
+		long handle = (long) (segments.length - 1) << 32 | position;
+		position += size;
+		bytes += size;
+		return handle;
+	}
+
+}
@@ -0,0 +1,42 @@
+/**
+ * This class represents a solution text which is kept compressed in a blob
+ * store outside the heap. The text is decompressed each time it is requested.
+ * @author Florian Mueller
+ */
+public class BlobText extends SolutionText {
+
+	/** store which contains the text */
+	private final BlobStore blobs;
+
+	/** handle of the text in the store */
+	private final long handle;
+
+	/**
+	 * Constructs a new solution text without references.
+	 * @param blobs store which contains the text
+	 * @param handle handle of the text in the store
+	 * @param bytes estimated size of the text as a string on the heap in bytes
+	 */
+	BlobText(BlobStore blobs, long handle, int bytes) {
+		super(null, bytes);
+		this.blobs = blobs;
+		this.handle = handle;
+	}
+
+	/**
+	 * Decompresses the text.
+	 * @return the text
+	 */
+	public String getText() {
+		return blobs.get(handle);
+	}
+
+	/**
+	 * Decompresses the text.
+	 * @return the text
+	 */
+	public String toString() {
+		return this.getText();
+	}
+
+}
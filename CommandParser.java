@@ -0,0 +1,377 @@
+/**
+ * This class splits a command line into its command and parameters. The line
+ * is scanned once and only the bounds of the tokens are stored, so a token is
+ * only copied into a new string if it is requested. The checks of the tokens
+ * are hand-written character class checks instead of regular expressions.
+ * @author Florian Mueller
+ */
+public class CommandParser {
+
+	/** greatest matriculation number, it has five digits */
+	private static final int MAX_MAT_NUMBER = 99999;
+
+	/** greatest length of a decimal number, the point included */
+	private static final int MAX_DECIMAL_LENGTH = 9;
+
+	/** current command line */
+	private String line;
+
+	/** start index of each token in the command line */
+	private int[] start;
+
+	/** end index (exclusive) of each token in the command line */
+	private int[] end;
+
+	/** amount of tokens in the command line */
+	private int count;
+
+	/**
+	 * Constructs a new command parser.
+	 */
+	public CommandParser() {
+		this.start = new int[8];
+		this.end = new int[8];
+	}
+
+	/**
+	 * Splits the given command line into tokens separated by white spaces.
+	 * Leading and trailing white spaces are ignored. An empty line consists of
+	 * one empty token.
+	 * @param line command line
+	 */
+	public void parse(String line) {
+		int from = 0;
+		int to = line.length();
+		while (from < to && line.charAt(from) <= ' ') {
+			from++;
+		}
+		while (to > from && line.charAt(to - 1) <= ' ') {
+			to--;
+		}
+		this.line = line;
+		this.count = 0;
+		int i = from;
+		while (i < to) {
+			int tokenStart = i;
+			while (i < to && !isWhitespace(line.charAt(i))) {
+				i++;
+			}
+			this.add(tokenStart, i);
+			while (i < to && isWhitespace(line.charAt(i))) {
+				i++;
+			}
+		}
+		if (count == 0) {
+			this.add(from, from);
+		}
+	}
+
+	/**
+	 * Returns the amount of tokens, the command included.
+	 * @return amount of tokens
+	 */
+	public int count() {
+		return this.count;
+	}
+
+	/**
+	 * Checks whether the command of the line is the given command. Upper and
+	 * lower case are not distinguished.
+	 * @param cmd command in lower case
+	 * @return {@code true} if it is the command, {@code false} otherwise
+	 */
+	public boolean isCommand(String cmd) {
+		return end[0] - start[0] == cmd.length()
+				&& line.regionMatches(true, start[0], cmd, 0, cmd.length());
+	}
+
+	/**
+	 * Returns the command of the line in lower case.
+	 * @return command in lower case
+	 */
+	public String command() {
+		return this.token(0).toLowerCase();
+	}
+
+	/**
+	 * Returns the token with the given index.
+	 * @param index index of the token, the command has index 0
+	 * @return token
+	 */
+	public String token(int index) {
+		return line.substring(start[index], end[index]);
+	}
+
+	/**
+	 * Checks whether the token is a name. A name consists of lower case
+	 * letters only.
+	 * @param index index of the token
+	 * @return {@code true} if the token is a name, {@code false} otherwise
+	 */
+	public boolean isName(int index) {
+		return isName(line, start[index], end[index]);
+	}
+
+	/**
+	 * Checks whether the token consists of digits between the given digits
+	 * and has a length in the given bounds.
+	 * @param index index of the token
+	 * @param min smallest allowed digit
+	 * @param max greatest allowed digit
+	 * @param minLength minimal length of the token
+	 * @param maxLength maximal length of the token
+	 * @return {@code true} if the token matches, {@code false} otherwise
+	 */
+	public boolean isDigits(int index, char min, char max, int minLength,
+			int maxLength) {
+		int length = end[index] - start[index];
+		if (length < minLength || length > maxLength) {
+			return false;
+		}
+		for (int i = start[index]; i < end[index]; i++) {
+			char c = line.charAt(i);
+			if (c < min || c > max) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks whether the token is a matriculation number, that is a number
+	 * with exactly five digits.
+	 * @param index index of the token
+	 * @return {@code true} if the token is a matriculation number,
+	 *         {@code false} otherwise
+	 */
+	public boolean isMatNumber(int index) {
+		return this.isDigits(index, '0', '9', 5, 5);
+	}
+
+	/**
+	 * Checks whether the token is a task number, that is a number whose last
+	 * digit is not zero.
+	 * @param index index of the token
+	 * @return {@code true} if the token is a task number, {@code false} otherwise
+	 */
+	public boolean isTaskNumber(int index) {
+		return this.isDigits(index, '0', '9', 1, Integer.MAX_VALUE)
+				&& line.charAt(end[index] - 1) != '0';
+	}
+
+	/**
+	 * Parses the token as a non-negative number. The token must consist of
+	 * digits only.
+	 * @param index index of the token
+	 * @return value of the token, or -1 if it does not fit into an int
+	 */
+	public int parseInt(int index) {
+		return parseInt(line, start[index], end[index]);
+	}
+
+	/**
+	 * Checks whether the token is a decimal number, that is digits optionally
+	 * followed by a point and further digits.
+	 * @param index index of the token
+	 * @return {@code true} if the token is a decimal number, {@code false} otherwise
+	 */
+	public boolean isDecimal(int index) {
+		if (end[index] - start[index] > MAX_DECIMAL_LENGTH) {
+			return false;
+		}
+		int point = start[index];
+		while (point < end[index] && line.charAt(point) != '.') {
+			point++;
+		}
+		return isDigits(line, start[index], point)
+				&& (point == end[index] || isDigits(line, point + 1, end[index]));
+	}
+
+	/**
+	 * Parses the token as a decimal number. The token must be a decimal
+	 * number.
+	 * @param index index of the token
+	 * @return value of the token
+	 */
+	public double parseDecimal(int index) {
+		return Double.parseDouble(this.token(index));
+	}
+
+	/**
+	 * Checks whether the token is a comparison, that is one of
+	 * {@code <}, {@code <=}, {@code >} and {@code >=}.
+	 * @param index index of the token
+	 * @return {@code true} if the token is a comparison, {@code false} otherwise
+	 */
+	public boolean isComparison(int index) {
+		return isComparison(this.token(index));
+	}
+
+	/**
+	 * Returns the value of a token like {@code key=value}.
+	 * @param index index of the token
+	 * @param key key of the token
+	 * @return value of the token, or null if the token has another key
+	 */
+	public String value(int index, String key) {
+		int length = key.length();
+		if (end[index] - start[index] > length
+				&& line.regionMatches(start[index], key, 0, length)
+				&& line.charAt(start[index] + length) == '=') {
+			return line.substring(start[index] + length + 1, end[index]);
+		}
+		return null;
+	}
+
+	/**
+	 * Checks whether the given string is a comparison, that is one of
+	 * {@code <}, {@code <=}, {@code >} and {@code >=}.
+	 * @param comparison string to check
+	 * @return {@code true} if it is a comparison, {@code false} otherwise
+	 */
+	public static boolean isComparison(String comparison) {
+		return "<".equals(comparison) || "<=".equals(comparison)
+				|| ">".equals(comparison) || ">=".equals(comparison);
+	}
+
+	/**
+	 * Checks whether the given string is a task number, that is a number whose
+	 * last digit is not zero.
+	 * @param taskNumber string to check
+	 * @return {@code true} if it is a task number, {@code false} otherwise
+	 */
+	public static boolean isTaskNumber(String taskNumber) {
+		return isDigits(taskNumber, 0, taskNumber.length())
+				&& taskNumber.charAt(taskNumber.length() - 1) != '0';
+	}
+
+	/**
+	 * Parses the given string as a non-negative number. The string must
+	 * consist of digits only.
+	 * @param number string to parse
+	 * @return value of the string, or -1 if it does not fit into an int
+	 */
+	public static int parseInt(String number) {
+		return parseInt(number, 0, number.length());
+	}
+
+	/**
+	 * Checks whether the given string is a name. A name consists of lower case
+	 * letters only.
+	 * @param name string to check
+	 * @return {@code true} if the string is a name, {@code false} otherwise
+	 */
+	public static boolean isName(String name) {
+		return isName(name, 0, name.length());
+	}
+
+	/**
+	 * Checks whether the given number is a matriculation number, that is a
+	 * non-negative number with at most five digits.
+	 * @param matNumber number to check
+	 * @return {@code true} if it is a matriculation number, {@code false} otherwise
+	 */
+	public static boolean inMatNumberRange(int matNumber) {
+		return matNumber >= 0 && matNumber <= MAX_MAT_NUMBER;
+	}
+
+	/**
+	 * Checks whether the given grade is between 1 and 5.
+	 * @param grade grade to check
+	 * @return {@code true} if it is a grade, {@code false} otherwise
+	 */
+	public static boolean isGrade(int grade) {
+		return grade >= 1 && grade <= 5;
+	}
+
+	/**
+	 * Checks whether the given range of the string consists of at least one
+	 * lower case letter and nothing else.
+	 * @param s string to check
+	 * @param from start index of the range
+	 * @param to end index (exclusive) of the range
+	 * @return {@code true} if the range is a name, {@code false} otherwise
+	 */
+	private static boolean isName(String s, int from, int to) {
+		if (from >= to) {
+			return false;
+		}
+		for (int i = from; i < to; i++) {
+			char c = s.charAt(i);
+			if (c < 'a' || c > 'z') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks whether the given range of the string consists of at least one
+	 * digit and nothing else.
+	 * @param s string to check
+	 * @param from start index of the range
+	 * @param to end index (exclusive) of the range
+	 * @return {@code true} if the range is a number, {@code false} otherwise
+	 */
+	private static boolean isDigits(String s, int from, int to) {
+		if (from >= to) {
+			return false;
+		}
+		for (int i = from; i < to; i++) {
+			char c = s.charAt(i);
+			if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Parses the given range of the string as a non-negative number. The
+	 * range must consist of digits only.
+	 * @param s string to parse
+	 * @param from start index of the range
+	 * @param to end index (exclusive) of the range
+	 * @return value of the range, or -1 if it does not fit into an int
+	 */
+	private static int parseInt(String s, int from, int to) {
+		long value = 0;
+		for (int i = from; i < to; i++) {
+			value = value * 10 + (s.charAt(i) - '0');
+			if (value > Integer.MAX_VALUE) {
+				return -1;
+			}
+		}
+		return (int) value;
+	}
+
+	/**
+	 * Checks whether the character separates two tokens.
+	 * @param c character to check
+	 * @return {@code true} if it is a white space, {@code false} otherwise
+	 */
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B'
+				|| c == '\f' || c == '\r';
+	}
+
+	/**
+	 * Stores the bounds of a new token.
+	 * @param from start index of the token
+	 * @param to end index (exclusive) of the token
+	 */
+	private void add(int from, int to) {
+		if (count == start.length) {
+			int[] newStart = new int[count * 2];
+			int[] newEnd = new int[count * 2];
+			System.arraycopy(start, 0, newStart, 0, count);
+			System.arraycopy(end, 0, newEnd, 0, count);
+			start = newStart;
+			end = newEnd;
+		}
+		start[count] = from;
+		end[count] = to;
+		count++;
+	}
+
+}
@@ -8,9 +8,12 @@ public class Correction {
 	/* grade for the solution */
 	private int grade;
 
-	/* comment from the tutor of the student */
+	/* comment from the tutor of the student, null if it is not decoded */
 	private String comment;
 
+	/* encoded comment from the tutor of the student, null if it is decoded */
+	private MappedText mappedComment;
+
 	/**
 	 * Constructs a new correction.
 	 * @param grade grade for the solution
@@ -21,6 +24,17 @@ public class Correction {
 		this.comment = comment;
 	}
 
+	/**
+	 * Constructs a correction from a snapshot. The comment is decoded each
+	 * time it is requested.
+	 * @param grade grade for the solution
+	 * @param mappedComment encoded comment from the tutor of the student
+	 */
+	public Correction(int grade, MappedText mappedComment) {
+		this.grade = grade;
+		this.mappedComment = mappedComment;
+	}
+
 	/**
 	 * Retruns grade of the solution.
 	 * @return grade of the solution
@@ -34,6 +48,9 @@ public class Correction {
 	 * @return comment of this correction
 	 */
 	public String getComment() {
+		if (this.comment == null && this.mappedComment != null) {
+			return this.mappedComment.toString();
+		}
 		return this.comment;
 	}
 
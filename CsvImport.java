@@ -0,0 +1,300 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * This class imports CSV files into the praktomat. A file of students or
+ * submissions is read as a stream and its rows are passed to the praktomat in
+ * batches, so the size of the file does not matter. Every row which cannot
+ * be imported is reported with its line number, all other rows are imported.
+ * <p>
+ * A file of students has the rows {@code tutor,matNumber,name}, a file of
+ * submissions has the rows {@code taskId,matNumber,text}. The text of a
+ * solution is the rest of the row and may contain commas. An optional first
+ * line with these column names and empty lines are skipped.
+ * <p>
+ * A file of reviews has the rows {@code taskId,matNumber,grade,comment} and
+ * is applied as a single batch: either all reviews are applied or none.
+ * @author Florian Mueller
+ */
+public final class CsvImport {
+
+	/** column names of a file of students */
+	private static final String STUDENTS_HEADER = "tutor,matNumber,name";
+
+	/** column names of a file of submissions */
+	private static final String SUBMISSIONS_HEADER = "taskId,matNumber,text";
+
+	/** column names of a file of reviews */
+	private static final String REVIEWS_HEADER = "taskId,matNumber,grade,comment";
+
+	/** amount of rows passed to the praktomat at once */
+	private static final int BATCH_SIZE = 8192;
+
+	/** size of the input buffer */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** separator of the fields of a row */
+	private static final char SEPARATOR = ',';
+
+	/** length of a matriculation number */
+	private static final int MAT_NUMBER_LENGTH = 5;
+
+	/** maximum length of a task id */
+	private static final int TASK_ID_LENGTH = 9;
+
+	/**
+	 * Private Constructor. This is a Utility class that should not be
+	 * instantiated.
+	 */
+	private CsvImport() {
+	}
+
+	/**
+	 * Imports the students with their tutors. Missing tutors are created.
+	 * @param in CSV file of students
+	 * @param praktomat praktomat to import into
+	 * @param errors output of the rows which cannot be imported
+	 * @return amount of imported students
+	 * @throws IOException if the file cannot be read or the errors cannot be written
+	 */
+	public static int importStudents(Reader in, Praktomat praktomat,
+			Appendable errors) throws IOException {
+		return importRows(in, praktomat, errors, false);
+	}
+
+	/**
+	 * Imports the solutions of the students.
+	 * @param in CSV file of submissions
+	 * @param praktomat praktomat to import into
+	 * @param errors output of the rows which cannot be imported
+	 * @return amount of imported solutions
+	 * @throws IOException if the file cannot be read or the errors cannot be written
+	 */
+	public static int importSubmissions(Reader in, Praktomat praktomat,
+			Appendable errors) throws IOException {
+		return importRows(in, praktomat, errors, true);
+	}
+
+	/**
+	 * Reviews the solutions of a file of reviews as one batch. If a row cannot
+	 * be reviewed, all such rows are reported and no solution is reviewed.
+	 * @param in CSV file of reviews
+	 * @param praktomat praktomat to review in
+	 * @param errors output of the rows which cannot be reviewed
+	 * @return amount of reviewed solutions, or -1 if the batch is rejected
+	 * @throws IOException if the file cannot be read or the errors cannot be written
+	 */
+	public static int importReviews(Reader in, Praktomat praktomat,
+			Appendable errors) throws IOException {
+		BufferedReader reader = new BufferedReader(in, BUFFER_SIZE);
+		int[] taskIds = new int[BATCH_SIZE];
+		int[] matNumbers = new int[BATCH_SIZE];
+		int[] grades = new int[BATCH_SIZE];
+		String[] comments = new String[BATCH_SIZE];
+		int[] lines = new int[BATCH_SIZE];
+		int count = 0;
+		boolean valid = true;
+		int lineNumber = 0;
+		String line;
+		while ((line = reader.readLine()) != null) {
+			lineNumber++;
+			if (line.isEmpty() || lineNumber == 1 && line.equalsIgnoreCase(REVIEWS_HEADER)) {
+				continue;
+			}
+			int first = line.indexOf(SEPARATOR);
+			int second = first < 0 ? -1 : line.indexOf(SEPARATOR, first + 1);
+			int third = second < 0 ? -1 : line.indexOf(SEPARATOR, second + 1);
+			String message = null;
+			if (third < 0) {
+				message = "Wrong number of fields.";
+			} else if (parseNumber(line, 0, first, TASK_ID_LENGTH) <= 0) {
+				message = "Task number must be a number > 0.";
+			} else if (second - first - 1 != MAT_NUMBER_LENGTH
+					|| parseNumber(line, first + 1, second, MAT_NUMBER_LENGTH) < 0) {
+				message = "Matriculation number must be a five digit positive Number.";
+			} else if (third - second != 2 || line.charAt(second + 1) < '1'
+					|| line.charAt(second + 1) > '5') {
+				message = "Grade must be a one digit number between 1 and 5.";
+			} else if (third + 1 == line.length()) {
+				message = "No comment is given.";
+			}
+			if (message != null) {
+				error(errors, lineNumber, message);
+				valid = false;
+				continue;
+			}
+			if (count == taskIds.length) {
+				taskIds = Arrays.copyOf(taskIds, count * 2);
+				matNumbers = Arrays.copyOf(matNumbers, count * 2);
+				grades = Arrays.copyOf(grades, count * 2);
+				comments = Arrays.copyOf(comments, count * 2);
+				lines = Arrays.copyOf(lines, count * 2);
+			}
+			taskIds[count] = parseNumber(line, 0, first, TASK_ID_LENGTH);
+			matNumbers[count] = parseNumber(line, first + 1, second, MAT_NUMBER_LENGTH);
+			grades[count] = line.charAt(second + 1) - '0';
+			comments[count] = line.substring(third + 1);
+			lines[count] = lineNumber;
+			count++;
+		}
+		if (!valid) {
+			return -1;
+		}
+		String[] rejected = praktomat.reviewBatch(taskIds, matNumbers, grades,
+				comments, count);
+		for (int i = 0; i < count; i++) {
+			if (rejected[i] != null) {
+				error(errors, lines[i], rejected[i]);
+				valid = false;
+			}
+		}
+		return valid ? count : -1;
+	}
+
+	/**
+	 * Reads the rows, checks their format and passes each full batch to the
+	 * praktomat.
+	 * @param in CSV file
+	 * @param praktomat praktomat to import into
+	 * @param errors output of the rows which cannot be imported
+	 * @param submissions {@code true} for submissions, {@code false} for students
+	 * @return amount of imported rows
+	 * @throws IOException if the file cannot be read or the errors cannot be written
+	 */
+	private static int importRows(Reader in, Praktomat praktomat,
+			Appendable errors, boolean submissions) throws IOException {
+		BufferedReader reader = new BufferedReader(in, BUFFER_SIZE);
+		String[] tutorNames = new String[BATCH_SIZE];
+		int[] taskIds = new int[BATCH_SIZE];
+		int[] matNumbers = new int[BATCH_SIZE];
+		String[] texts = new String[BATCH_SIZE];
+		int[] lines = new int[BATCH_SIZE];
+		int count = 0;
+		int imported = 0;
+		int lineNumber = 0;
+		String line;
+		while ((line = reader.readLine()) != null) {
+			lineNumber++;
+			if (line.isEmpty() || lineNumber == 1 && line.equalsIgnoreCase(
+					submissions ? SUBMISSIONS_HEADER : STUDENTS_HEADER)) {
+				continue;
+			}
+			int first = line.indexOf(SEPARATOR);
+			int second = first < 0 ? -1 : line.indexOf(SEPARATOR, first + 1);
+			int matNumber = second < 0 ? -1
+					: parseNumber(line, first + 1, second, MAT_NUMBER_LENGTH);
+			int taskId = submissions && first > 0
+					? parseNumber(line, 0, first, TASK_ID_LENGTH) : -1;
+			String message = null;
+			if (second < 0 || !submissions && line.indexOf(SEPARATOR, second + 1) >= 0) {
+				message = "Wrong number of fields.";
+			} else if (matNumber < 0 || second - first - 1 != MAT_NUMBER_LENGTH) {
+				message = "Matriculation number must be a five digit positiv number.";
+			} else if (submissions && taskId <= 0) {
+				message = "Task number must be a number > 0.";
+			} else if (second + 1 == line.length()) {
+				message = submissions ? "No solution is given." : "No student name is given.";
+			}
+			if (message != null) {
+				// the rows before are imported first to report the errors in order
+				imported += apply(praktomat, errors, submissions, tutorNames,
+						taskIds, matNumbers, texts, lines, count);
+				count = 0;
+				error(errors, lineNumber, message);
+				continue;
+			}
+			if (submissions) {
+				taskIds[count] = taskId;
+			} else {
+				tutorNames[count] = line.substring(0, first);
+			}
+			matNumbers[count] = matNumber;
+			texts[count] = line.substring(second + 1);
+			lines[count] = lineNumber;
+			if (++count == BATCH_SIZE) {
+				imported += apply(praktomat, errors, submissions, tutorNames,
+						taskIds, matNumbers, texts, lines, count);
+				count = 0;
+			}
+		}
+		return imported + apply(praktomat, errors, submissions, tutorNames,
+				taskIds, matNumbers, texts, lines, count);
+	}
+
+	/**
+	 * Passes a batch of rows to the praktomat and reports the rows which are
+	 * not imported.
+	 * @param praktomat praktomat to import into
+	 * @param errors output of the rows which cannot be imported
+	 * @param submissions {@code true} for submissions, {@code false} for students
+	 * @param tutorNames names of the tutors, only for students
+	 * @param taskIds task ids, only for submissions
+	 * @param matNumbers matriculation numbers
+	 * @param texts names of the students or solutions
+	 * @param lines line numbers of the rows
+	 * @param count amount of rows
+	 * @return amount of imported rows
+	 * @throws IOException if the errors cannot be written
+	 */
+	private static int apply(Praktomat praktomat, Appendable errors,
+			boolean submissions, String[] tutorNames, int[] taskIds,
+			int[] matNumbers, String[] texts, int[] lines, int count)
+			throws IOException {
+		if (count == 0) {
+			return 0;
+		}
+		String[] rejected = submissions
+				? praktomat.importSubmissions(taskIds, matNumbers, texts, count)
+				: praktomat.importStudents(tutorNames, matNumbers, texts, count);
+		int imported = 0;
+		for (int i = 0; i < count; i++) {
+			if (rejected[i] == null) {
+				imported++;
+			} else {
+				error(errors, lines[i], rejected[i]);
+			}
+		}
+		return imported;
+	}
+
+	/**
+	 * Parses a positive decimal number without sign.
+	 * @param line line which contains the number
+	 * @param from index of the first digit
+	 * @param to index behind the last digit
+	 * @param maxLength maximum amount of digits
+	 * @return the number, or -1 if it is no number of at most maxLength digits
+	 */
+	private static int parseNumber(String line, int from, int to, int maxLength) {
+		if (from >= to || to - from > maxLength) {
+			return -1;
+		}
+		int value = 0;
+		for (int i = from; i < to; i++) {
+			char c = line.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			value = value * 10 + c - '0';
+		}
+		return value;
+	}
+
+	/**
+	 * Reports a row which cannot be imported.
+	 * @param errors output of the rows which cannot be imported
+	 * @param lineNumber line number of the row
+	 * @param message reason why the row cannot be imported
+	 * @throws IOException if the errors cannot be written
+	 */
+	private static void error(Appendable errors, int lineNumber, String message)
+			throws IOException {
+		errors.append("Error! Line ");
+		ReportFormat.appendInt(errors, lineNumber);
+		errors.append(": ").append(message);
+		ReportFormat.newLine(errors);
+	}
+
+}
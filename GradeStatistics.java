@@ -0,0 +1,136 @@
+import java.io.IOException;
+
+/**
+ * This class computes order statistics of grades from the amount of each
+ * grade, so no grade has to be sorted. As there are only five grades, the
+ * statistics are exact and take constant time.
+ * <p>
+ * The percentiles are interpolated linearly between the two grades next to
+ * the rank (n - 1) * p of the n sorted grades, so the median of an even
+ * amount of grades is the mean of the two middle grades.
+ * @author Florian Mueller
+ */
+public final class GradeStatistics {
+
+	/** the grade 5 is the only failing grade, 4 passes */
+	private static final int FAILING_GRADE = 5;
+
+	/**
+	 * Private Constructor. This is a Utility class that should not be
+	 * instantiated.
+	 */
+	private GradeStatistics() {
+	}
+
+	/**
+	 * Returns the amount of all grades.
+	 * @param grades amount of each grade, the grade 1 at index 0
+	 * @return amount of grades
+	 */
+	public static int count(int[] grades) {
+		int count = 0;
+		for (int amount : grades) {
+			count += amount;
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the given percentile of the grades.
+	 * @param grades amount of each grade, the grade 1 at index 0
+	 * @param p percentile between 0 and 1, 0.5 for the median
+	 * @return percentile of the grades, or a negative number if there is no
+	 *         grade
+	 */
+	public static double percentile(int[] grades, double p) {
+		if (p < 0 || p > 1) {
+			throw new IllegalArgumentException(
+					"Error! Percentile must be between 0 and 1.");
+		}
+		int count = count(grades);
+		if (count == 0) {
+			return -1;
+		}
+		double rank = (count - 1) * p;
+		int lower = (int) rank;
+		int lowerGrade = gradeAt(grades, lower);
+		if (rank == lower) {
+			return lowerGrade;
+		}
+		return lowerGrade + (rank - lower) * (gradeAt(grades, lower + 1) - lowerGrade);
+	}
+
+	/**
+	 * Returns the percentage of failing grades.
+	 * @param grades amount of each grade, the grade 1 at index 0
+	 * @return percentage between 0 and 100, or a negative number if there is
+	 *         no grade
+	 */
+	public static double failing(int[] grades) {
+		int count = count(grades);
+		if (count == 0) {
+			return -1;
+		}
+		return 100.0 * grades[FAILING_GRADE - 1] / count;
+	}
+
+	/**
+	 * Writes the median, the quartiles and the percentage of failing grades,
+	 * each on a line of its own. A dash is written if there is no grade.
+	 * @param out output to write to
+	 * @param grades amount of each grade, the grade 1 at index 0
+	 * @throws IOException if the output cannot be written
+	 */
+	public static void appendDetail(Appendable out, int[] grades)
+			throws IOException {
+		out.append("median: ");
+		appendValue(out, percentile(grades, 0.5));
+		ReportFormat.newLine(out);
+		out.append("quartiles: ");
+		appendValue(out, percentile(grades, 0.25));
+		if (count(grades) > 0) {
+			out.append(", ");
+			appendValue(out, percentile(grades, 0.75));
+		}
+		ReportFormat.newLine(out);
+		out.append("failing: ");
+		appendValue(out, failing(grades));
+		if (count(grades) > 0) {
+			out.append('%');
+		}
+		ReportFormat.newLine(out);
+	}
+
+	/**
+	 * Writes a statistic with two decimal places, or a dash if it is
+	 * negative.
+	 * @param out output to write to
+	 * @param value statistic
+	 * @throws IOException if the output cannot be written
+	 */
+	private static void appendValue(Appendable out, double value)
+			throws IOException {
+		if (value < 0) {
+			out.append('-');
+		} else {
+			ReportFormat.appendGrade(out, value);
+		}
+	}
+
+	/**
+	 * Returns the grade at the given rank of the sorted grades.
+	 * @param grades amount of each grade, the grade 1 at index 0
+	 * @param rank rank of the grade, the smallest grade at rank 0
+	 * @return grade at the rank
+	 */
+	private static int gradeAt(int[] grades, int rank) {
+		int grade = 0;
+		int below = grades[0];
+		while (below <= rank) {
+			grade++;
+			below += grades[grade];
+		}
+		return grade + 1;
+	}
+
+}
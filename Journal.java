@@ -0,0 +1,531 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * This class represents the journal of the praktomat. Every successful
+ * mutating operation is appended as a binary record, so the state of the
+ * praktomat can be rebuilt after a crash by replaying the journal.
+ * <p>
+ * A record consists of the length and the CRC32 checksum of its payload,
+ * followed by the payload: the operation code and its arguments. Replaying
+ * stops at the first incomplete or damaged record, which is cut off.
+ * <p>
+ * The header holds the epoch of the journal, which grows every time the
+ * records are taken over by a snapshot. A snapshot stores the epoch of the
+ * records it contains, so a journal which was not cleared after the snapshot
+ * is not replayed a second time.
+ * @author Florian Mueller
+ */
+public class Journal implements Closeable {
+
+	/**
+	 * Policies when the written records are forced to the storage device.
+	 */
+	public enum SyncPolicy {
+
+		/** force after every record */
+		ALWAYS,
+
+		/** force all records written in an interval at once */
+		GROUP,
+
+		/** leave it to the operating system */
+		OS
+	}
+
+	/** first bytes of every journal file */
+	private static final int MAGIC = 0x504a4e4c;
+
+	/** version of the record format */
+	private static final int VERSION = 2;
+
+	/** length of the file header with magic number, version and epoch */
+	private static final int HEADER_LENGTH = 16;
+
+	/** position of the epoch in the file header */
+	private static final int EPOCH_POSITION = 8;
+
+	/** epoch of a new journal */
+	private static final long FIRST_EPOCH = 1;
+
+	/** length of the record header with length and checksum */
+	private static final int RECORD_HEADER_LENGTH = 8;
+
+	/** operation code of addTutor */
+	private static final byte OP_TUTOR = 1;
+
+	/** operation code of addTask */
+	private static final byte OP_TASK = 3;
+
+	/** operation code of submit */
+	private static final byte OP_SUBMIT = 4;
+
+	/** operation code of review */
+	private static final byte OP_REVIEW = 5;
+
+	/** operation code of addStudent with the name of the tutor */
+	private static final byte OP_STUDENT_OF_TUTOR = 6;
+
+	/** channel of the journal file */
+	private final FileChannel channel;
+
+	/** policy when the records are forced */
+	private final SyncPolicy policy;
+
+	/** scheduler of the group commits, null if not needed */
+	private final ScheduledExecutorService scheduler;
+
+	/** buffer for the payload of the current record */
+	private final ByteArrayOutputStream payload;
+
+	/** writer of the payload of the current record */
+	private final DataOutputStream data;
+
+	/** checksum of the current record */
+	private final CRC32 crc;
+
+	/** whether records are written since the last force */
+	private volatile boolean dirty;
+
+	/** records of the open batch, null if no batch is open */
+	private ByteArrayOutputStream batch;
+
+	/** epoch of the records of this journal */
+	private long epoch;
+
+	/**
+	 * Opens the journal in the given file. A missing file is created.
+	 * @param file file of the journal
+	 * @param policy policy when the records are forced
+	 * @param groupMillis interval of the group commits in milliseconds, only
+	 *        used with {@link SyncPolicy#GROUP}
+	 * @throws IOException if the file cannot be opened or is no journal
+	 */
+	public Journal(File file, SyncPolicy policy, long groupMillis)
+			throws IOException {
+		if (policy == null) {
+			throw new IllegalArgumentException("Error! No sync policy is given.");
+		} else if (policy == SyncPolicy.GROUP && groupMillis <= 0) {
+			throw new IllegalArgumentException(
+					"Error! Group commit interval must be a number > 0.");
+		}
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		this.policy = policy;
+		this.payload = new ByteArrayOutputStream();
+		this.data = new DataOutputStream(payload);
+		this.crc = new CRC32();
+		try {
+			this.checkHeader();
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		if (policy == SyncPolicy.GROUP) {
+			this.scheduler = Executors.newSingleThreadScheduledExecutor(
+					new ThreadFactory() {
+						public Thread newThread(Runnable r) {
+							Thread thread = new Thread(r, "journal-group-commit");
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+			scheduler.scheduleWithFixedDelay(new Runnable() {
+				public void run() {
+					groupCommit();
+				}
+			}, groupMillis, groupMillis, TimeUnit.MILLISECONDS);
+		} else {
+			this.scheduler = null;
+		}
+	}
+
+	/**
+	 * Replays all records of this journal on the given praktomat. A damaged
+	 * or incomplete record at the end, left by a crash, is cut off together
+	 * with everything behind it.
+	 * @param praktomat praktomat to rebuild, must not write to this journal
+	 * @return amount of replayed records
+	 * @throws IOException if the journal cannot be read
+	 */
+	public synchronized int replay(Praktomat praktomat) throws IOException {
+		long position = HEADER_LENGTH;
+		long size = channel.size();
+		ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_LENGTH);
+		int records = 0;
+		while (position + RECORD_HEADER_LENGTH <= size) {
+			header.clear();
+			readFully(header, position);
+			int length = header.getInt(0);
+			int checksum = header.getInt(4);
+			if (length <= 0 || position + RECORD_HEADER_LENGTH + length > size) {
+				break;
+			}
+			ByteBuffer record = ByteBuffer.allocate(length);
+			readFully(record, position + RECORD_HEADER_LENGTH);
+			crc.reset();
+			crc.update(record.array(), 0, length);
+			if ((int) crc.getValue() != checksum) {
+				break;
+			}
+			apply(new DataInputStream(new ByteArrayInputStream(record.array())),
+					praktomat);
+			position += RECORD_HEADER_LENGTH + length;
+			records++;
+		}
+		if (position < size) {
+			channel.truncate(position);
+			channel.force(false);
+		}
+		channel.position(position);
+		return records;
+	}
+
+	/**
+	 * Appends the record of {@link Praktomat#addTutor(String)}.
+	 * @param tutorName name of the tutor
+	 */
+	public synchronized void logAddTutor(String tutorName) {
+		try {
+			payload.reset();
+			data.writeByte(OP_TUTOR);
+			writeString(data, tutorName);
+			this.append();
+		} catch (IOException e) {
+			throw fail(e);
+		}
+	}
+
+	/**
+	 * Appends the record of {@link Praktomat#addStudent(String, int, String)}.
+	 * The name of the tutor is written, so the record does not depend on the
+	 * selected tutor.
+	 * @param tutorName name of the tutor
+	 * @param matNumber matriculation number of student
+	 * @param studentName name of student
+	 */
+	public synchronized void logAddStudent(String tutorName, int matNumber,
+			String studentName) {
+		try {
+			payload.reset();
+			data.writeByte(OP_STUDENT_OF_TUTOR);
+			writeString(data, tutorName);
+			data.writeInt(matNumber);
+			writeString(data, studentName);
+			this.append();
+		} catch (IOException e) {
+			throw fail(e);
+		}
+	}
+
+	/**
+	 * Appends the record of {@link Praktomat#addTask(String)}.
+	 * @param taskName name of task
+	 */
+	public synchronized void logAddTask(String taskName) {
+		try {
+			payload.reset();
+			data.writeByte(OP_TASK);
+			writeString(data, taskName);
+			this.append();
+		} catch (IOException e) {
+			throw fail(e);
+		}
+	}
+
+	/**
+	 * Appends the record of {@link Praktomat#submit(int, int, String)}.
+	 * @param taskId task id of the solution
+	 * @param matNumber matriculation number of the student
+	 * @param solutionText solution of the student
+	 */
+	public synchronized void logSubmit(int taskId, int matNumber,
+			String solutionText) {
+		try {
+			payload.reset();
+			data.writeByte(OP_SUBMIT);
+			data.writeInt(taskId);
+			data.writeInt(matNumber);
+			writeString(data, solutionText);
+			this.append();
+		} catch (IOException e) {
+			throw fail(e);
+		}
+	}
+
+	/**
+	 * Appends the record of {@link Praktomat#review(int, int, int, String)}.
+	 * @param taskId task id of the task
+	 * @param matNumber matriculation number of the student
+	 * @param grade grade for the solution
+	 * @param comment comment for the solution
+	 */
+	public synchronized void logReview(int taskId, int matNumber, int grade,
+			String comment) {
+		try {
+			payload.reset();
+			data.writeByte(OP_REVIEW);
+			data.writeInt(taskId);
+			data.writeInt(matNumber);
+			data.writeByte(grade);
+			writeString(data, comment);
+			this.append();
+		} catch (IOException e) {
+			throw fail(e);
+		}
+	}
+
+	/**
+	 * Opens a batch. The records of a batch are collected and written and
+	 * forced together when the batch is closed.
+	 */
+	public synchronized void beginBatch() {
+		if (batch != null) {
+			throw new IllegalStateException("Batch is already open.");
+		}
+		batch = new ByteArrayOutputStream();
+	}
+
+	/**
+	 * Writes and forces all records of the open batch.
+	 */
+	public synchronized void endBatch() {
+		if (batch == null) {
+			throw new IllegalStateException("No batch is open.");
+		}
+		ByteBuffer records = ByteBuffer.wrap(batch.toByteArray());
+		batch = null;
+		try {
+			while (records.hasRemaining()) {
+				channel.write(records);
+			}
+			this.written();
+		} catch (IOException e) {
+			throw fail(e);
+		}
+	}
+
+	/**
+	 * Returns the epoch of the records of this journal.
+	 * @return epoch of this journal
+	 */
+	public synchronized long getEpoch() {
+		return this.epoch;
+	}
+
+	/**
+	 * Removes all records, used when the praktomat is reset. The epoch stays
+	 * the same.
+	 */
+	public synchronized void clear() {
+		this.clear(this.epoch);
+	}
+
+	/**
+	 * Removes all records and starts the given epoch, used when the records
+	 * are taken over by a snapshot. The records are removed before the epoch
+	 * is written, so a crash in between leaves an empty journal.
+	 * @param epoch epoch of the following records
+	 */
+	public synchronized void clear(long epoch) {
+		try {
+			channel.truncate(HEADER_LENGTH);
+			channel.position(HEADER_LENGTH);
+			channel.force(false);
+			dirty = false;
+			if (epoch != this.epoch) {
+				ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH - EPOCH_POSITION);
+				header.putLong(epoch).flip();
+				while (header.hasRemaining()) {
+					channel.write(header, EPOCH_POSITION + header.position());
+				}
+				channel.force(false);
+				this.epoch = epoch;
+			}
+		} catch (IOException e) {
+			throw fail(e);
+		}
+	}
+
+	/**
+	 * Forces all written records and closes this journal.
+	 * @throws IOException if the journal cannot be closed
+	 */
+	public synchronized void close() throws IOException {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+		}
+		if (channel.isOpen()) {
+			channel.force(false);
+			channel.close();
+		}
+	}
+
+	/**
+	 * Writes the current payload as a record and forces it if required. In
+	 * a batch the record is only collected.
+	 * @throws IOException if the record cannot be written
+	 */
+	private void append() throws IOException {
+		byte[] bytes = payload.toByteArray();
+		ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_LENGTH + bytes.length);
+		crc.reset();
+		crc.update(bytes, 0, bytes.length);
+		record.putInt(bytes.length).putInt((int) crc.getValue()).put(bytes);
+		if (batch != null) {
+			batch.write(record.array(), 0, record.capacity());
+			return;
+		}
+		record.flip();
+		while (record.hasRemaining()) {
+			channel.write(record);
+		}
+		this.written();
+	}
+
+	/**
+	 * Forces the written records if the policy requires it.
+	 * @throws IOException if the records cannot be forced
+	 */
+	private void written() throws IOException {
+		if (policy == SyncPolicy.ALWAYS) {
+			channel.force(false);
+		} else if (policy == SyncPolicy.GROUP) {
+			dirty = true;
+		}
+	}
+
+	/**
+	 * Forces all records written since the last group commit.
+	 */
+	private void groupCommit() {
+		if (dirty) {
+			dirty = false;
+			try {
+				channel.force(false);
+			} catch (IOException e) {
+				dirty = true;
+			}
+		}
+	}
+
+	/**
+	 * Writes the header of a new journal file or checks the header of an
+	 * existing one.
+	 * @throws IOException if the file is no journal of this version
+	 */
+	private void checkHeader() throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+		if (channel.size() < HEADER_LENGTH) {
+			header.putInt(MAGIC).putInt(VERSION).putLong(FIRST_EPOCH).flip();
+			channel.truncate(0);
+			while (header.hasRemaining()) {
+				channel.write(header, header.position());
+			}
+			channel.force(false);
+			this.epoch = FIRST_EPOCH;
+		} else {
+			readFully(header, 0);
+			if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+				throw new IOException("File is no journal of version "
+						+ VERSION + ".");
+			}
+			this.epoch = header.getLong(EPOCH_POSITION);
+		}
+		channel.position(channel.size());
+	}
+
+	/**
+	 * Reads the buffer completely from the given file position.
+	 * @param buffer buffer to fill
+	 * @param position position in the file
+	 * @throws IOException if the file cannot be read
+	 */
+	private void readFully(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of journal.");
+			}
+		}
+	}
+
+	/**
+	 * Applies one record on the praktomat.
+	 * @param in payload of the record
+	 * @param praktomat praktomat to operate on
+	 * @throws IOException if the record cannot be decoded
+	 */
+	private static void apply(DataInputStream in, Praktomat praktomat)
+			throws IOException {
+		byte op = in.readByte();
+		if (op == OP_TUTOR) {
+			praktomat.addTutor(readString(in));
+		} else if (op == OP_STUDENT_OF_TUTOR) {
+			String tutorName = readString(in);
+			int matNumber = in.readInt();
+			praktomat.addStudent(tutorName, matNumber, readString(in));
+		} else if (op == OP_TASK) {
+			praktomat.addTask(readString(in));
+		} else if (op == OP_SUBMIT) {
+			int taskId = in.readInt();
+			int matNumber = in.readInt();
+			praktomat.submit(taskId, matNumber, readString(in));
+		} else if (op == OP_REVIEW) {
+			int taskId = in.readInt();
+			int matNumber = in.readInt();
+			int grade = in.readByte();
+			praktomat.review(taskId, matNumber, grade, readString(in));
+		} else {
+			throw new IOException("Unknown journal record " + op + ".");
+		}
+	}
+
+	/**
+	 * Writes a string as its length followed by its UTF-8 bytes.
+	 * @param out output of the payload
+	 * @param s string to write
+	 * @throws IOException if the string cannot be written
+	 */
+	private static void writeString(DataOutputStream out, String s)
+			throws IOException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Reads a string written by {@link #writeString(DataOutputStream, String)}.
+	 * @param in input of the payload
+	 * @return string
+	 * @throws IOException if the string cannot be read
+	 */
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Wraps an error while writing the journal.
+	 * @param e cause of the error
+	 * @return exception to throw
+	 */
+	private static IllegalStateException fail(IOException e) {
+		return new IllegalStateException("Error! Cannot write journal.", e);
+	}
+
+}
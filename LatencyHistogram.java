@@ -0,0 +1,172 @@
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class counts the calls and errors of an operation and records their
+ * latencies in a histogram. Like an HDR histogram the buckets grow
+ * exponentially, each power of two is split into {@value #SUB_BUCKETS}
+ * buckets, so every latency is recorded with a relative error below 7%.
+ * <p>
+ * Recording is lock-free and allocates no memory, so it can be done by many
+ * threads on every call of an operation.
+ * @author Florian Mueller
+ */
+public class LatencyHistogram {
+
+	/** bits of a latency which select the bucket within its power of two */
+	private static final int SUB_BUCKET_BITS = 4;
+
+	/** amount of buckets per power of two */
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/** amount of buckets, enough for every positive long */
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	/** amount of latencies in each bucket */
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+	/** amount of calls */
+	private final AtomicLong count = new AtomicLong();
+
+	/** amount of calls which failed */
+	private final AtomicLong errors = new AtomicLong();
+
+	/** sum of all latencies in nanoseconds */
+	private final AtomicLong total = new AtomicLong();
+
+	/** highest latency in nanoseconds */
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records a call which started at the given time and ends now.
+	 * @param startNanos value of {@link System#nanoTime()} at the start of the call
+	 */
+	public void recordSince(long startNanos) {
+		this.record(System.nanoTime() - startNanos);
+	}
+
+	/**
+	 * Records a call with the given latency.
+	 * @param nanos latency in nanoseconds, negative values count as 0
+	 */
+	public void record(long nanos) {
+		long latency = Math.max(0, nanos);
+		buckets.incrementAndGet(bucket(latency));
+		count.incrementAndGet();
+		total.addAndGet(latency);
+		long highest = max.get();
+		while (latency > highest && !max.compareAndSet(highest, latency)) {
+			highest = max.get();
+		}
+	}
+
+	/**
+	 * Records that a call failed. The latency of the call is recorded
+	 * separately.
+	 */
+	public void recordError() {
+		errors.incrementAndGet();
+	}
+
+	/**
+	 * Returns the amount of calls.
+	 * @return amount of calls
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * Returns the amount of calls which failed.
+	 * @return amount of failed calls
+	 */
+	public long getErrors() {
+		return errors.get();
+	}
+
+	/**
+	 * Returns the average latency.
+	 * @return average latency in nanoseconds, 0 if there was no call
+	 */
+	public double getMean() {
+		long calls = count.get();
+		return calls == 0 ? 0 : (double) total.get() / calls;
+	}
+
+	/**
+	 * Returns the highest latency.
+	 * @return highest latency in nanoseconds
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Returns the latency below which the given share of the calls lies. The
+	 * latency is rounded up to the end of its bucket.
+	 * @param percentile share of the calls between 0 and 100
+	 * @return latency in nanoseconds, 0 if there was no call
+	 */
+	public long getPercentile(double percentile) {
+		long[] counts = new long[BUCKETS];
+		long calls = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = buckets.get(i);
+			calls += counts[i];
+		}
+		long rank = (long) Math.ceil(calls * Math.min(100, percentile) / 100);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen > 0 && seen >= rank) {
+				return Math.min(highestValue(i), max.get());
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Returns the amount of calls, errors and the mean, median, 90th and 99th
+	 * percentile and highest latency in microseconds.
+	 * @return summary of the recorded calls
+	 */
+	public String toString() {
+		return String.format(Locale.US, "count %d, errors %d, mean %.1f us, "
+				+ "p50 %.1f us, p90 %.1f us, p99 %.1f us, max %.1f us",
+				this.getCount(), this.getErrors(), this.getMean() / 1e3,
+				this.getPercentile(50) / 1e3, this.getPercentile(90) / 1e3,
+				this.getPercentile(99) / 1e3, this.getMax() / 1e3);
+	}
+
+	/**
+	 * Returns the bucket of the given latency. Latencies below
+	 * {@value #SUB_BUCKETS} have a bucket each, above the highest
+	 * {@value #SUB_BUCKET_BITS} bits after the leading one select the bucket
+	 * within the power of two.
+	 * @param nanos latency in nanoseconds, not negative
+	 * @return index of the bucket
+	 */
+	private static int bucket(long nanos) {
+		if (nanos < SUB_BUCKETS) {
+			return (int) nanos;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKETS + (int) (nanos >>> shift) - SUB_BUCKETS;
+	}
+
+	/**
+	 * Returns the highest latency of the given bucket.
+	 * @param bucket index of the bucket
+	 * @return highest latency of the bucket in nanoseconds
+	 */
+	private static long highestValue(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKETS - 1;
+		long first = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+		return first + (1L << shift) - 1;
+	}
+
+}
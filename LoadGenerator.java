@@ -0,0 +1,227 @@
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * This class implements a load generator for the {@link Server}. It opens many
+ * connections at the same time, sends submits and reviews in pipelined
+ * batches and reports the throughput and the median and 99th percentile of
+ * the latency. A command is finished when its prompt arrives, so the latency
+ * of a command is the time from sending its batch until its prompt arrives.
+ * @author Florian Mueller
+ */
+public final class LoadGenerator {
+
+	/** prompt which ends the reply to every command */
+	private static final byte[] PROMPT = Shell.PROMPT.getBytes(
+			StandardCharsets.UTF_8);
+
+	/** amount of tasks the commands are spread over */
+	private static final int TASKS = 100;
+
+	/** first matriculation number used by the load generator */
+	private static final int FIRST_MAT_NUMBER = 10000;
+
+	/** default amount of simultaneous connections */
+	private static final int CONNECTIONS = 1000;
+
+	/** default amount of commands per connection */
+	private static final int COMMANDS = 1000;
+
+	/** default amount of commands sent before the replies are read */
+	private static final int PIPELINE = 8;
+
+	/**
+	 * Private Constructor. This is a Utility class that should not be
+	 * instantiated.
+	 */
+	private LoadGenerator() {
+	}
+
+	/**
+	 * main method - runs the load against a server on the local host. The
+	 * server should be started on an empty praktomat.
+	 * @param args port, and optional amount of connections, commands per
+	 *        connection and commands per pipelined batch
+	 * @throws Exception if the load cannot be generated
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 1 || args.length > 4) {
+			System.out.println("Error! Wrong number of parameters.");
+			return;
+		}
+		int port = Integer.parseInt(args[0]);
+		int connections = args.length > 1 ? Integer.parseInt(args[1]) : CONNECTIONS;
+		int commands = args.length > 2 ? Integer.parseInt(args[2]) : COMMANDS;
+		int pipeline = args.length > 3 ? Integer.parseInt(args[3]) : PIPELINE;
+		if (connections < 1 || FIRST_MAT_NUMBER + connections > 100000) {
+			System.out.println("Error! Connections must be between 1 and 90000.");
+			return;
+		}
+
+		setup(port, connections);
+
+		final CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Server.newExecutor();
+		List<Future<long[]>> results = new ArrayList<Future<long[]>>();
+		List<Socket> sockets = new ArrayList<Socket>();
+		for (int c = 0; c < connections; c++) {
+			final Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+			sockets.add(socket);
+			final int matNumber = FIRST_MAT_NUMBER + c;
+			final int amount = commands;
+			final int batch = pipeline;
+			results.add(executor.submit(new Callable<long[]>() {
+				public long[] call() throws Exception {
+					start.await();
+					return run(socket, matNumber, amount, batch);
+				}
+			}));
+		}
+
+		long begin = System.nanoTime();
+		start.countDown();
+		long[] latencies = new long[connections * commands];
+		int count = 0;
+		try {
+			for (Future<long[]> f : results) {
+				long[] l = f.get();
+				System.arraycopy(l, 0, latencies, count, l.length);
+				count += l.length;
+			}
+		} catch (ExecutionException e) {
+			System.out.println("Error! " + e.getCause());
+			return;
+		} finally {
+			executor.shutdownNow();
+			for (Socket s : sockets) {
+				s.close();
+			}
+		}
+		long time = System.nanoTime() - begin;
+
+		Arrays.sort(latencies, 0, count);
+		System.out.println(String.format(Locale.US,
+				"connections: %d, commands: %d, time: %.1f ms, "
+				+ "throughput: %.0f commands/s, p50: %.1f us, p99: %.1f us",
+				connections, count, time / 1e6, count / (time / 1e9),
+				latencies[count / 2] / 1e3, latencies[(int) (count * 0.99)] / 1e3));
+	}
+
+	/**
+	 * Creates a tutor, one student per connection and the tasks.
+	 * @param port port of the server
+	 * @param connections amount of connections
+	 * @throws IOException if the server cannot be reached
+	 */
+	private static void setup(int port, int connections) throws IOException {
+		Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+		try {
+			OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+			InputStream in = socket.getInputStream();
+			awaitPrompts(in, 1);
+			StringBuilder setup = new StringBuilder("tut load\n");
+			for (int c = 0; c < connections; c++) {
+				setup.append("stud load ").append(FIRST_MAT_NUMBER + c).append('\n');
+			}
+			for (int t = 0; t < TASKS; t++) {
+				setup.append("task load\n");
+			}
+			out.write(setup.toString().getBytes(StandardCharsets.UTF_8));
+			out.flush();
+			awaitPrompts(in, 1 + connections + TASKS);
+		} finally {
+			socket.close();
+		}
+	}
+
+	/**
+	 * Sends the commands of one connection. The student submits a solution
+	 * to every task first and then reviews them in turn.
+	 * @param socket connection to the server
+	 * @param matNumber matriculation number of the student of this connection
+	 * @param commands amount of commands to send
+	 * @param pipeline amount of commands sent before the replies are read
+	 * @return latency of each command in nanoseconds
+	 * @throws IOException if the server cannot be reached
+	 */
+	private static long[] run(Socket socket, int matNumber, int commands,
+			int pipeline) throws IOException {
+		OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+		InputStream in = socket.getInputStream();
+		long[] latencies = new long[commands];
+		StringBuilder batch = new StringBuilder();
+		awaitPrompts(in, 1);
+		int k = 0;
+		while (k < commands) {
+			int size = Math.min(pipeline, commands - k);
+			batch.setLength(0);
+			for (int i = k; i < k + size; i++) {
+				int taskId = 1 + i % TASKS;
+				if (i < TASKS) {
+					batch.append("submit ").append(taskId).append(' ')
+							.append(matNumber).append(" solution\n");
+				} else {
+					batch.append("review ").append(taskId).append(' ')
+							.append(matNumber).append(' ').append(1 + i % 5)
+							.append(" ok\n");
+				}
+			}
+			long sent = System.nanoTime();
+			out.write(batch.toString().getBytes(StandardCharsets.UTF_8));
+			out.flush();
+			awaitPrompts(in, size);
+			long latency = System.nanoTime() - sent;
+			for (int i = k; i < k + size; i++) {
+				latencies[i] = latency;
+			}
+			k += size;
+		}
+		out.write("quit\n".getBytes(StandardCharsets.UTF_8));
+		out.flush();
+		return latencies;
+	}
+
+	/**
+	 * Reads the replies until the given amount of prompts has arrived.
+	 * @param in input of the connection
+	 * @param prompts amount of prompts to wait for
+	 * @throws IOException if the connection is closed before
+	 */
+	private static void awaitPrompts(InputStream in, int prompts)
+			throws IOException {
+		byte[] buffer = new byte[8192];
+		int matched = 0;
+		while (prompts > 0) {
+			int n = in.read(buffer);
+			if (n < 0) {
+				throw new IOException("Connection closed by the server.");
+			}
+			for (int i = 0; i < n; i++) {
+				if (buffer[i] == PROMPT[matched]) {
+					matched++;
+				} else {
+					matched = buffer[i] == PROMPT[0] ? 1 : 0;
+				}
+				if (matched == PROMPT.length) {
+					matched = 0;
+					prompts--;
+				}
+			}
+		}
+	}
+
+}
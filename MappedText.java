@@ -0,0 +1,45 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class represents a text which stays UTF-8 encoded in a buffer, for
+ * example a memory-mapped snapshot file. The text is only decoded when it is
+ * requested.
+ * @author Florian Mueller
+ */
+public class MappedText {
+
+	/** buffer which contains the encoded text */
+	private final ByteBuffer buffer;
+
+	/** position of the text in the buffer */
+	private final int offset;
+
+	/** length of the encoded text in bytes */
+	private final int length;
+
+	/**
+	 * Constructs a new text in the given range of the buffer.
+	 * @param buffer buffer which contains the encoded text
+	 * @param offset position of the text in the buffer
+	 * @param length length of the encoded text in bytes
+	 */
+	public MappedText(ByteBuffer buffer, int offset, int length) {
+		this.buffer = buffer;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	/**
+	 * Decodes the text.
+	 * @return the text
+	 */
+	public String toString() {
+		byte[] bytes = new byte[length];
+		ByteBuffer source = buffer.duplicate();
+		source.position(offset);
+		source.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
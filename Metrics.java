@@ -0,0 +1,55 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * This class holds a latency histogram for each named operation. The
+ * histogram of an operation is created at its first use, afterwards it is
+ * looked up without locks.
+ * @author Florian Mueller
+ */
+public class Metrics {
+
+	/** histogram of each operation, keyed by the name of the operation */
+	private final ConcurrentMap<String, LatencyHistogram> histograms
+			= new ConcurrentHashMap<String, LatencyHistogram>();
+
+	/**
+	 * Returns the histogram of the given operation.
+	 * @param name name of the operation
+	 * @return histogram of the operation
+	 */
+	public LatencyHistogram histogram(String name) {
+		LatencyHistogram histogram = histograms.get(name);
+		if (histogram == null) {
+			LatencyHistogram created = new LatencyHistogram();
+			histogram = histograms.putIfAbsent(name, created);
+			if (histogram == null) {
+				histogram = created;
+			}
+		}
+		return histogram;
+	}
+
+	/**
+	 * Lists the histograms of all operations which were called, sorted by
+	 * the names of the operations.
+	 * @param prefix prefix of each line
+	 * @return one line per operation
+	 */
+	public List<String> report(String prefix) {
+		List<String> report = new ArrayList<String>();
+		Map<String, LatencyHistogram> sorted
+				= new TreeMap<String, LatencyHistogram>(histograms);
+		for (Map.Entry<String, LatencyHistogram> e : sorted.entrySet()) {
+			if (e.getValue().getCount() > 0) {
+				report.add(prefix + e.getKey() + ": " + e.getValue());
+			}
+		}
+		return report;
+	}
+
+}
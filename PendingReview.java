@@ -0,0 +1,62 @@
+/**
+ * This class represents a submitted solution which is not reviewed yet, with
+ * its task and student, as an entry of the review queue of a tutor.
+ * @author Florian Mueller
+ */
+public class PendingReview {
+
+	/** task of the solution */
+	private final Task task;
+
+	/** student who submitted the solution */
+	private final Student student;
+
+	/** solution without review */
+	private final Solution solution;
+
+	/**
+	 * Constructs a new entry of a review queue.
+	 * @param task task of the solution
+	 * @param student student who submitted the solution
+	 * @param solution solution without review
+	 */
+	public PendingReview(Task task, Student student, Solution solution) {
+		this.task = task;
+		this.student = student;
+		this.solution = solution;
+	}
+
+	/**
+	 * Returns the task of the solution.
+	 * @return task of the solution
+	 */
+	public Task getTask() {
+		return this.task;
+	}
+
+	/**
+	 * Returns the student who submitted the solution.
+	 * @return student of the solution
+	 */
+	public Student getStudent() {
+		return this.student;
+	}
+
+	/**
+	 * Returns the solution without review.
+	 * @return the solution
+	 */
+	public Solution getSolution() {
+		return this.solution;
+	}
+
+	/**
+	 * Returns the task id, the student and the solution text.
+	 * @return task id(n): (matNumber,name): solution text
+	 */
+	public String toString() {
+		return "task id(" + task.getTaskNumber() + "): (" + student.getMatNumber()
+				+ "," + student.getName() + "): " + solution.getSolutionText();
+	}
+
+}
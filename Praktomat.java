@@ -1,39 +1,312 @@
-import java.math.RoundingMode;
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * This class represents the Praktomat itself. It stores and administers the
  * tutors, students and tasks of the Praktomat's members and their relationships.
+ * The Praktomat can be used by several threads at the same time.
  * @author Florian Mueller
  */
 public class Praktomat {
 
+	/** name of the operation snapshot in the metrics */
+	private static final String OP_SNAPSHOT = "snapshot";
+
+	/** name of the operation reset in the metrics */
+	private static final String OP_RESET = "reset";
+
+	/** name of the operation add-tutor in the metrics */
+	private static final String OP_ADD_TUTOR = "add-tutor";
+
+	/** name of the operation add-student in the metrics */
+	private static final String OP_ADD_STUDENT = "add-student";
+
+	/** name of the operation add-task in the metrics */
+	private static final String OP_ADD_TASK = "add-task";
+
+	/** name of the operation list-students in the metrics */
+	private static final String OP_LIST_STUDENTS = "list-students";
+
+	/** name of the operation submit in the metrics */
+	private static final String OP_SUBMIT = "submit";
+
+	/** name of the operation review in the metrics */
+	private static final String OP_REVIEW = "review";
+
+	/** name of the operation review-batch in the metrics */
+	private static final String OP_REVIEW_BATCH = "review-batch";
+
+	/** name of the operation next-review in the metrics */
+	private static final String OP_NEXT_REVIEW = "next-review";
+
+	/** name of the operation pending in the metrics */
+	private static final String OP_PENDING = "pending";
+
+	/** name of the operation transcript in the metrics */
+	private static final String OP_TRANSCRIPT = "transcript";
+
+	/** name of the operation list-solutions in the metrics */
+	private static final String OP_LIST_SOLUTIONS = "list-solutions";
+
+	/** name of the operation results in the metrics */
+	private static final String OP_RESULTS = "results";
+
+	/** name of the operation summary-task in the metrics */
+	private static final String OP_SUMMARY_TASK = "summary-task";
+
+	/** name of the operation summary-student in the metrics */
+	private static final String OP_SUMMARY_STUDENT = "summary-student";
+
+	/** name of the operation importing students in the metrics */
+	private static final String OP_IMPORT_STUDENTS = "import-students";
+
+	/** name of the operation importing solutions in the metrics */
+	private static final String OP_IMPORT_SUBMISSIONS = "import-submissions";
+
+	/** name of the operation listing the best or worst students in the metrics */
+	private static final String OP_RANK_STUDENTS = "rank-students";
+
+	/** name of the operation summary-tutor in the metrics */
+	private static final String OP_SUMMARY_TUTOR = "summary-tutor";
+
+	/** name of the operation summary-tutor-task in the metrics */
+	private static final String OP_SUMMARY_TUTOR_TASK = "summary-tutor-task";
+
+	/** name of the operation compare-tutors in the metrics */
+	private static final String OP_COMPARE_TUTORS = "compare-tutors";
+
+	/** name of the operation query in the metrics */
+	private static final String OP_QUERY = "query";
+
+	/** amount of tasks per thread whose parallel reports are kept in memory */
+	private static final int TASKS_PER_THREAD = 16;
+
 	/** list of all tutors */
 	private List<Tutor> tutors;
 
+	/** all tutors, keyed by their names */
+	private HashMap<String, Tutor> tutorsByName;
+
 	/** list of all students */
 	private TreeMap<Integer, Student> students;
 
-	/** list of all tasks */
-	private List<Task> tasks;
+	/** list of all tasks, the task with id n is stored at index n - 1 */
+	private ArrayList<Task> tasks;
+
+	/** tutor of each student, keyed by matriculation number */
+	private HashMap<Integer, Tutor> studTutor;
+
+	/** graded students in the order of summary-student */
+	private StudentRanking ranking;
+
+	/** texts of the submitted solutions, each distinct text stored once */
+	private SolutionStore solutionTexts;
 
 	/** last added or selected tutor */
 	private Tutor currentTutor;
 
+	/** journal of all mutating operations, null if there is none */
+	private Journal journal;
+
+	/** epoch of the journal whose records are contained, 0 if there is none */
+	private long snapshotEpoch;
+
+	/** latencies and errors of the operations */
+	private final Metrics metrics = new Metrics();
+
+	/** latencies of the operation snapshot */
+	private final LatencyHistogram snapshotLatency = metrics.histogram(OP_SNAPSHOT);
+
+	/** latencies of the operation reset */
+	private final LatencyHistogram resetLatency = metrics.histogram(OP_RESET);
+
+	/** latencies of the operation add-tutor */
+	private final LatencyHistogram addTutorLatency = metrics.histogram(OP_ADD_TUTOR);
+
+	/** latencies of the operation add-student */
+	private final LatencyHistogram addStudentLatency = metrics.histogram(OP_ADD_STUDENT);
+
+	/** latencies of the operation add-task */
+	private final LatencyHistogram addTaskLatency = metrics.histogram(OP_ADD_TASK);
+
+	/** latencies of the operation list-students */
+	private final LatencyHistogram listStudentsLatency = metrics.histogram(OP_LIST_STUDENTS);
+
+	/** latencies of the operation submit */
+	private final LatencyHistogram submitLatency = metrics.histogram(OP_SUBMIT);
+
+	/** latencies of the operation review */
+	private final LatencyHistogram reviewLatency = metrics.histogram(OP_REVIEW);
+
+	/** latencies of the operation review-batch */
+	private final LatencyHistogram reviewBatchLatency = metrics.histogram(OP_REVIEW_BATCH);
+
+	/** latencies of the operation next-review */
+	private final LatencyHistogram nextReviewLatency = metrics.histogram(OP_NEXT_REVIEW);
+
+	/** latencies of the operation pending */
+	private final LatencyHistogram pendingLatency = metrics.histogram(OP_PENDING);
+
+	/** latencies of the operation transcript */
+	private final LatencyHistogram transcriptLatency = metrics.histogram(OP_TRANSCRIPT);
+
+	/** latencies of the operation list-solutions */
+	private final LatencyHistogram listSolutionsLatency = metrics.histogram(OP_LIST_SOLUTIONS);
+
+	/** latencies of the operation results */
+	private final LatencyHistogram resultsLatency = metrics.histogram(OP_RESULTS);
+
+	/** latencies of the operation summary-task */
+	private final LatencyHistogram summaryTaskLatency = metrics.histogram(OP_SUMMARY_TASK);
+
+	/** latencies of the operation summary-student */
+	private final LatencyHistogram summaryStudentLatency = metrics.histogram(OP_SUMMARY_STUDENT);
+
+	/** latencies of the operation import-students */
+	private final LatencyHistogram importStudentsLatency = metrics.histogram(OP_IMPORT_STUDENTS);
+
+	/** latencies of the operation import-submissions */
+	private final LatencyHistogram importSubmissionsLatency = metrics.histogram(OP_IMPORT_SUBMISSIONS);
+
+	/** latencies of the operation rank-students */
+	private final LatencyHistogram rankStudentsLatency = metrics.histogram(OP_RANK_STUDENTS);
+
+	/** latencies of the operation summary-tutor */
+	private final LatencyHistogram summaryTutorLatency = metrics.histogram(OP_SUMMARY_TUTOR);
+
+	/** latencies of the operation summary-tutor-task */
+	private final LatencyHistogram summaryTutorTaskLatency = metrics.histogram(OP_SUMMARY_TUTOR_TASK);
+
+	/** latencies of the operation compare-tutors */
+	private final LatencyHistogram compareTutorsLatency = metrics.histogram(OP_COMPARE_TUTORS);
+
+	/** latencies of the operation query */
+	private final LatencyHistogram queryLatency = metrics.histogram(OP_QUERY);
+
+	/** whether the solution texts are kept compressed outside the heap */
+	private final boolean compressSolutionTexts;
+
+	/**
+	 * lock of the tutors, students and tasks. Adding them needs the write
+	 * lock, submits and reviews the read lock and the lock of their task, so
+	 * submits and reviews on different tasks run in parallel. The reports take
+	 * the read lock and the lock of each task or student they read, and write
+	 * to their output only after the lock is released, so a slow client never
+	 * holds up the others.
+	 */
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
 	/**
 	 * Constructs a new Praktomat with initial tutors, students and tasks.
 	 */
 	public Praktomat() {
-		this.tutors = new LinkedList<Tutor>();
-		this.students = new TreeMap<Integer, Student>();
-		this.tasks = new LinkedList<Task>();
+		this(false);
+	}
+
+	/**
+	 * Constructs a new Praktomat with initial tutors, students and tasks.
+	 * @param compressSolutionTexts {@code true} to keep the solution texts
+	 *        compressed outside the heap, {@code false} to keep them on the heap
+	 */
+	public Praktomat(boolean compressSolutionTexts) {
+		this.compressSolutionTexts = compressSolutionTexts;
+		this.init();
+	}
+
+	/**
+	 * Sets the journal of this praktomat. All operations of the journal are
+	 * replayed and the following operations are written to it. If the
+	 * praktomat is read from a snapshot which already contains the records
+	 * of the journal, the journal is cleared instead of replayed.
+	 * @param journal journal of this praktomat
+	 * @throws IOException if the journal cannot be read
+	 */
+	public void setJournal(Journal journal) throws IOException {
+		lock.writeLock().lock();
+		try {
+			if (this.journal != null) {
+				throw new IllegalStateException(error("Journal is already set."));
+			}
+			if (journal.getEpoch() > snapshotEpoch) {
+				journal.replay(this);
+			} else {
+				journal.clear(snapshotEpoch + 1);
+			}
+			this.journal = journal;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Writes a snapshot of this praktomat to the given file. The journal is
+	 * cleared afterwards and starts a new epoch, because the snapshot contains
+	 * all its operations.
+	 * @param file file of the snapshot
+	 * @throws IOException if the snapshot cannot be written
+	 */
+	public void writeSnapshot(File file) throws IOException {
+		try (TimedCall call = new TimedCall(snapshotLatency, lock.writeLock())) {
+			if (journal != null) {
+				snapshotEpoch = journal.getEpoch();
+			}
+			Snapshot.write(this, file);
+			if (journal != null) {
+				journal.clear(snapshotEpoch + 1);
+			}
+			call.done();
+		}
+	}
+
+	/**
+	 * Removes all tutors, students and tasks from the praktomat. The journal
+	 * is cleared as well. If the praktomat has a snapshot, use
+	 * {@link #reset(File)} instead, which replaces the snapshot too.
+	 */
+	public void reset() {
+		try (TimedCall call = new TimedCall(resetLatency, lock.writeLock())) {
+			this.init();
+			if (journal != null) {
+				journal.clear();
+			}
+			call.done();
+		}
+	}
+
+	/**
+	 * Removes all tutors, students and tasks from the praktomat and replaces
+	 * the snapshot in the given file by an empty one, so a restart does not
+	 * bring back the removed state. The empty snapshot takes over the records
+	 * of the journal, which is cleared afterwards and starts a new epoch, as
+	 * with {@link #writeSnapshot(File)}. Nothing is removed if the snapshot
+	 * cannot be written.
+	 * @param file file of the snapshot
+	 * @throws IOException if the snapshot cannot be written
+	 */
+	public void reset(File file) throws IOException {
+		try (TimedCall call = new TimedCall(resetLatency, lock.writeLock())) {
+			long epoch = journal != null ? journal.getEpoch() : snapshotEpoch;
+			Praktomat empty = new Praktomat();
+			empty.restoreSnapshotEpoch(epoch);
+			Snapshot.write(empty, file);
+			this.init();
+			snapshotEpoch = epoch;
+			if (journal != null) {
+				journal.clear(epoch + 1);
+			}
+			call.done();
+		}
 	}
 
 	/**
@@ -41,19 +314,23 @@ public class Praktomat {
 	 * @param tutorName name of the tutor is added.
 	 */
 	public void addTutor(String tutorName) {
-		if (tutorName == null) {
-			throw new IllegalArgumentException(error("No tutor name is given."));
-		} else if (!tutorName.matches("[a-z]+")) {
-			throw new IllegalArgumentException(
-					error("Name consist of unauthorized signs."));
-		} else if (this.containsTutor(tutorName)) {
-			for (Tutor t : tutors) {
-				if (t.getName().equals(tutorName)) {
-					currentTutor = t;
-				}
+		try (TimedCall call = new TimedCall(addTutorLatency, lock.writeLock())) {
+			if (tutorName == null) {
+				throw new IllegalArgumentException(error("No tutor name is given."));
+			} else if (!CommandParser.isName(tutorName)) {
+				throw new IllegalArgumentException(
+						error("Name consist of unauthorized signs."));
 			}
-		} else {
-			this.tutors.add(currentTutor = new Tutor(tutorName));
+			if (journal != null) {
+				journal.logAddTutor(tutorName);
+			}
+			if (this.containsTutor(tutorName)) {
+				currentTutor = tutorsByName.get(tutorName);
+			} else {
+				this.tutors.add(currentTutor = new Tutor(tutorName));
+				tutorsByName.put(tutorName, currentTutor);
+			}
+			call.done();
 		}
 	}
 
@@ -62,7 +339,12 @@ public class Praktomat {
 	 * @return {@code true} if there exists at least one tutor, {@code false} otherwise
 	 */
 	public boolean existTutor() {
-		return currentTutor != null;
+		lock.readLock().lock();
+		try {
+			return currentTutor != null;
+		} finally {
+			lock.readLock().unlock();
+		}
 	}
 
 	/**
@@ -72,23 +354,69 @@ public class Praktomat {
 	 * @param studentName name of student
 	 */
 	public void addStudent(int matNumber, String studentName) {
+		try (TimedCall call = new TimedCall(addStudentLatency, lock.writeLock())) {
+			this.addStudent(currentTutor, matNumber, studentName);
+			call.done();
+		}
+	}
+
+	/**
+	 * Adds the given student to the given tutor. The selected tutor stays the
+	 * same, so clients which share the praktomat can each add students to
+	 * their own tutor. A missing tutor is created, but not selected.
+	 * @param tutorName name of the tutor
+	 * @param matNumber matriculation number of student
+	 * @param studentName name of student
+	 */
+	public void addStudent(String tutorName, int matNumber, String studentName) {
+		try (TimedCall call = new TimedCall(addStudentLatency, lock.writeLock())) {
+			if (tutorName == null) {
+				throw new IllegalArgumentException(error("No tutor name is given."));
+			} else if (!CommandParser.isName(tutorName)) {
+				throw new IllegalArgumentException(
+						error("Name consist of unauthorized signs."));
+			}
+			Tutor tutor = tutorsByName.get(tutorName);
+			this.addStudent(tutor != null ? tutor : new Tutor(tutorName), matNumber,
+					studentName);
+			call.done();
+		}
+	}
+
+	/**
+	 * Adds the given student to the given tutor. A tutor which is not in the
+	 * praktomat yet is added together with the student. The write lock must
+	 * be held.
+	 * @param tutor tutor of the student, null if no tutor is created
+	 * @param matNumber matriculation number of student
+	 * @param studentName name of student
+	 */
+	private void addStudent(Tutor tutor, int matNumber, String studentName) {
 		if (studentName == null) {
 			throw new IllegalArgumentException(
 					error("No student name is given."));
 		} else if (this.containsStudent(matNumber)) {
 			throw new IllegalArgumentException(error("Student already exists."));
-		} else if (currentTutor == null) {
+		} else if (tutor == null) {
 			throw new IllegalArgumentException(error("No tutor is created."));
-		} else if (!studentName.matches("[a-z]+")) {
+		} else if (!CommandParser.isName(studentName)) {
 			throw new IllegalArgumentException(
 					error("Name consist of unauthorized signs."));
-		} else if (!Integer.toString(matNumber).matches("[0-9]{1,5}")) {
+		} else if (!CommandParser.inMatNumberRange(matNumber)) {
 			throw new IllegalArgumentException(
 					error("Matriculation number must be a five digit positiv number."));
 		}
+		if (journal != null) {
+			journal.logAddStudent(tutor.getName(), matNumber, studentName);
+		}
+		if (!tutorsByName.containsKey(tutor.getName())) {
+			tutors.add(tutor);
+			tutorsByName.put(tutor.getName(), tutor);
+		}
 		Student student = new Student(studentName, matNumber);
 		students.put(matNumber, student);
-		currentTutor.addStudent(student);
+		studTutor.put(matNumber, tutor);
+		tutor.addStudent(student);
 	}
 
 	/**
@@ -98,33 +426,232 @@ public class Praktomat {
 	 * @return task id acknowledgment
 	 */
 	public String addTask(String taskName) {
-		if (taskName == null) {
-			throw new IllegalArgumentException(error("No task name is given."));
+		try (TimedCall call = new TimedCall(addTaskLatency, lock.writeLock())) {
+			if (taskName == null) {
+				throw new IllegalArgumentException(error("No task name is given."));
+			}
+			if (journal != null) {
+				journal.logAddTask(taskName);
+			}
+			Task task = new Task(tasks.size() + 1, taskName, solutionTexts);
+			tasks.add(task);
+
+			call.done();
+			return "task id(" + Integer.toString(tasks.size()) + ")";
 		}
-		Task task = new Task(tasks.size() + 1, taskName);
-		tasks.add(task);
-		
-		return "task id(" + Integer.toString(tasks.size()) + ")";
 	}
 
 	/**
-	 * Lists all students in praktomat on.
-	 * @return summary of the students in praktomat
+	 * Adds a batch of students with their tutors, as the commands tut and stud
+	 * would do for each row. Missing tutors are created, but the selected
+	 * tutor stays the same, as the file does not select a tutor. Rows which
+	 * fail the checks are skipped, all others are written to the journal and
+	 * then added under a single lock.
+	 * @param tutorNames names of the tutors
+	 * @param matNumbers matriculation numbers of the students
+	 * @param studentNames names of the students
+	 * @param count amount of rows
+	 * @return error message of each row which is skipped, null for each row
+	 *         which is added
 	 */
-	public List<String> listStudents() {
-		List<String> listOfStudents = new ArrayList<String>();
-		for (Integer matNumber : students.keySet()) {
-			for (Tutor t : tutors) {
-				List<Student> studFromTutor = t.getStudents();
-				for (Student s : studFromTutor) {
-					if (s.getMatNumber() == matNumber) {
-						listOfStudents.add("(" + s.getMatNumber() + "," + s.getName() + "): " + t.getName());
+	public String[] importStudents(String[] tutorNames, int[] matNumbers,
+			String[] studentNames, int count) {
+		try (TimedCall call = new TimedCall(importStudentsLatency, lock.writeLock())) {
+			String[] errors = new String[count];
+			HashSet<Integer> added = new HashSet<Integer>();
+			for (int i = 0; i < count; i++) {
+				errors[i] = this.checkImportStudent(tutorNames[i], matNumbers[i],
+						studentNames[i]);
+				if (errors[i] == null && !added.add(matNumbers[i])) {
+					errors[i] = "Student already exists.";
+				}
+			}
+			if (journal != null) {
+				journal.beginBatch();
+				try {
+					for (int i = 0; i < count; i++) {
+						if (errors[i] == null) {
+							journal.logAddStudent(tutorNames[i], matNumbers[i],
+									studentNames[i]);
+						}
+					}
+				} finally {
+					journal.endBatch();
+				}
+			}
+			for (int i = 0; i < count; i++) {
+				if (errors[i] == null) {
+					this.importStudent(tutorNames[i], matNumbers[i], studentNames[i]);
+				}
+			}
+			call.done();
+			return errors;
+		}
+	}
+
+	/**
+	 * Adds a batch of solutions, as the command submit would do for each row.
+	 * Rows which fail the checks are skipped, all others are written to the
+	 * journal and then added under a single lock.
+	 * @param taskIds task ids of the solutions
+	 * @param matNumbers matriculation numbers of the students
+	 * @param solutionTexts solutions of the students
+	 * @param count amount of rows
+	 * @return error message of each row which is skipped, null for each row
+	 *         which is added
+	 */
+	public String[] importSubmissions(int[] taskIds, int[] matNumbers,
+			String[] solutionTexts, int count) {
+		try (TimedCall call = new TimedCall(importSubmissionsLatency, lock.writeLock())) {
+			String[] errors = new String[count];
+			// task id and matriculation number of each accepted row
+			HashSet<Long> added = new HashSet<Long>();
+			for (int i = 0; i < count; i++) {
+				errors[i] = this.checkImportSubmission(taskIds[i], matNumbers[i],
+						solutionTexts[i]);
+				if (errors[i] == null
+						&& !added.add((long) taskIds[i] << 32 | matNumbers[i])) {
+					errors[i] = "A solution is already given.";
+				}
+			}
+			if (journal != null) {
+				journal.beginBatch();
+				try {
+					for (int i = 0; i < count; i++) {
+						if (errors[i] == null) {
+							journal.logSubmit(taskIds[i], matNumbers[i],
+									solutionTexts[i]);
+						}
 					}
+				} finally {
+					journal.endBatch();
+				}
+			}
+			for (int i = 0; i < count; i++) {
+				if (errors[i] == null) {
+					this.importSubmission(taskIds[i], matNumbers[i],
+							solutionTexts[i]);
 				}
 			}
+			call.done();
+			return errors;
+		}
+	}
+
+	/**
+	 * Checks one student of a batch like the commands tut and stud do. The
+	 * write lock must be held.
+	 * @param tutorName name of the tutor
+	 * @param matNumber matriculation number of the student
+	 * @param studentName name of the student
+	 * @return error message if the student is not added, null otherwise
+	 */
+	private String checkImportStudent(String tutorName, int matNumber,
+			String studentName) {
+		if (tutorName == null || studentName == null) {
+			return "No name is given.";
+		} else if (!CommandParser.isName(tutorName)
+				|| !CommandParser.isName(studentName)) {
+			return "Name consist of unauthorized signs.";
+		} else if (!CommandParser.inMatNumberRange(matNumber)) {
+			return "Matriculation number must be a five digit positiv number.";
+		} else if (students.containsKey(matNumber)) {
+			return "Student already exists.";
+		}
+		return null;
+	}
+
+	/**
+	 * Adds one checked student of a batch. The write lock must be held.
+	 * @param tutorName name of the tutor
+	 * @param matNumber matriculation number of the student
+	 * @param studentName name of the student
+	 */
+	private void importStudent(String tutorName, int matNumber,
+			String studentName) {
+		Tutor tutor = tutorsByName.get(tutorName);
+		if (tutor == null) {
+			tutor = new Tutor(tutorName);
+			tutors.add(tutor);
+			tutorsByName.put(tutorName, tutor);
+		}
+		Student student = new Student(studentName, matNumber);
+		students.put(matNumber, student);
+		studTutor.put(matNumber, tutor);
+		tutor.addStudent(student);
+	}
+
+	/**
+	 * Checks one solution of a batch like the command submit does. The write
+	 * lock must be held.
+	 * @param taskId task id of the solution
+	 * @param matNumber matriculation number of the student
+	 * @param solutionText solution of the student
+	 * @return error message if the solution is not added, null otherwise
+	 */
+	private String checkImportSubmission(int taskId, int matNumber,
+			String solutionText) {
+		Student student = students.get(matNumber);
+		if (solutionText == null) {
+			return "No solution is given.";
+		} else if (taskId < 1 || taskId > tasks.size()) {
+			return "Task does not exist.";
+		} else if (student == null) {
+			return "Student does not exist.";
+		} else if (this.findTask(taskId).containsStudent(student)) {
+			return "A solution is already given.";
+		}
+		return null;
+	}
+
+	/**
+	 * Adds one checked solution of a batch. The write lock must be held.
+	 * @param taskId task id of the solution
+	 * @param matNumber matriculation number of the student
+	 * @param solutionText solution of the student
+	 */
+	private void importSubmission(int taskId, int matNumber,
+			String solutionText) {
+		Student student = students.get(matNumber);
+		Task task = this.findTask(taskId);
+		Solution solution = task.addSolution(student, solutionText);
+		synchronized (student) {
+			student.addSolution(taskId, solution);
+		}
+		studTutor.get(matNumber).addPendingReview(
+				new PendingReview(task, student, solution));
+	}
+
+	/**
+	 * Lists all students in praktomat on.
+	 * @return summary of the students in praktomat
+	 */
+	public List<String> listStudents() {
+		StringBuilder report = new StringBuilder();
+		try {
+			this.listStudents(report);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
 		}
+		return ReportFormat.lines(report);
+	}
 
-		return listOfStudents;
+	/**
+	 * Writes all students in praktomat with their tutor, one per line.
+	 * @param out output to write to
+	 * @throws IOException if the output cannot be written
+	 */
+	public void listStudents(Appendable out) throws IOException {
+		StringBuilder report = new StringBuilder();
+		try (TimedCall call = new TimedCall(listStudentsLatency, lock.readLock())) {
+			for (Student s : students.values()) {
+				this.appendStudent(report, s);
+				report.append(this.findTutor(s).getName());
+				ReportFormat.newLine(report);
+			}
+			call.done();
+		}
+		out.append(report);
 	}
 
 	/**
@@ -135,19 +662,33 @@ public class Praktomat {
 	 * @param solutionText solution of the student
 	 */
 	public void submit(int taskId, int matNumber, String solutionText) {
-		if (!this.containsTask(taskId)) {
-			throw new IllegalArgumentException(error("Task does not exist."));
-		} else if (!this.containsStudent(matNumber)) {
-			throw new IllegalArgumentException(error("Student does not exist."));
-		} else if (solutionText == null) {
-			throw new IllegalArgumentException(error("No solution is given."));
-		}
+		try (TimedCall call = new TimedCall(submitLatency, lock.readLock())) {
+			if (!this.containsTask(taskId)) {
+				throw new IllegalArgumentException(error("Task does not exist."));
+			} else if (!this.containsStudent(matNumber)) {
+				throw new IllegalArgumentException(error("Student does not exist."));
+			} else if (solutionText == null) {
+				throw new IllegalArgumentException(error("No solution is given."));
+			}
 
-		Student student = this.findStudent(matNumber);
-		for (Task t : tasks) {
-			if (t.getTaskNumber() == taskId) {
-				t.addSolution(student, solutionText);
+			Student student = this.findStudent(matNumber);
+			Task task = this.findTask(taskId);
+			synchronized (task) {
+				if (task.containsStudent(student)) {
+					throw new IllegalArgumentException(
+							error("A solution is already given."));
+				}
+				if (journal != null) {
+					journal.logSubmit(taskId, matNumber, solutionText);
+				}
+				Solution solution = task.addSolution(student, solutionText);
+				synchronized (student) {
+					student.addSolution(taskId, solution);
+				}
+				this.findTutor(student).addPendingReview(
+						new PendingReview(task, student, solution));
 			}
+			call.done();
 		}
 	}
 
@@ -157,7 +698,12 @@ public class Praktomat {
 	 * @return {@code true} if there exists the student, {@code false} otherwise
 	 */
 	public boolean containsStudent(int matNumber) {
-		return students.containsKey(matNumber);
+		lock.readLock().lock();
+		try {
+			return students.containsKey(matNumber);
+		} finally {
+			lock.readLock().unlock();
+		}
 	}
 
 	/**
@@ -166,13 +712,12 @@ public class Praktomat {
 	 * @return {@code true} if there exists the task, {@code false} otherwise
 	 */
 	public boolean containsTask(int taskId) {
-		boolean result = false;
-		for (Task t : tasks) {
-			if (t.getTaskNumber() == taskId) {
-				result = true;
-			}
+		lock.readLock().lock();
+		try {
+			return taskId >= 1 && taskId <= tasks.size();
+		} finally {
+			lock.readLock().unlock();
 		}
-		return result;
 	}
 
 	/**
@@ -182,13 +727,18 @@ public class Praktomat {
 	 * @return {@code true} if there exists the solution, {@code false} otherwise
 	 */
 	public boolean containsSolution(int taskId, int matNumber) {
-		boolean result = false;
-		for (Task t : tasks) {
-			if (t.getTaskNumber() == taskId) {
-				result = t.containsStudent(this.findStudent(matNumber));
+		lock.readLock().lock();
+		try {
+			if (!this.containsTask(taskId)) {
+				return false;
+			}
+			Task task = this.findTask(taskId);
+			synchronized (task) {
+				return task.containsStudent(this.findStudent(matNumber));
 			}
+		} finally {
+			lock.readLock().unlock();
 		}
-		return result;
 	}
 	
 	/**
@@ -197,13 +747,12 @@ public class Praktomat {
 	 * @return {@code true} if there exists the tutor, {@code false} otherwise
 	 */
 	public boolean containsTutor(String tutorName) {
-		boolean result = false;
-		for (Tutor t : tutors) {
-			if (t.getName().equals(tutorName)) {
-				result = true;
-			}
+		lock.readLock().lock();
+		try {
+			return tutorsByName.containsKey(tutorName);
+		} finally {
+			lock.readLock().unlock();
 		}
-		return result;
 	}
 
 	/**
@@ -216,115 +765,652 @@ public class Praktomat {
 	 * @return reviewed acknowledgment
 	 */
 	public String review(int taskId, int matNumber, int grade, String comment) {
-		if (comment == null) {
-			throw new IllegalArgumentException(error("No comment is given."));
-		} else if (!this.containsTask(taskId)) {
-			throw new IllegalArgumentException(error("Task does not exist."));
-		} else if (!this.containsStudent(matNumber)) {
-			throw new IllegalArgumentException(
-					error("Student does not exists."));
-		} else if (!this.containsSolution(taskId, matNumber)) {
-			throw new IllegalArgumentException(
-					error("Solution does not exist."));
-		}
-		Student student = this.findStudent(matNumber);
-		Tutor tutor = this.findTutor(student);
-		Task task = this.findTask(taskId);
-		Solution solution = this.findSolution(taskId, matNumber);
-		String reviewed;
-		if (solution.getCorrection() != null) {
-			int oldGrade = solution.getCorrection().getGrade();
-			student.decGrade(oldGrade);
-			tutor.decGrade(oldGrade);
-			task.decGrade(oldGrade);
-		}
-		student.incGrade(grade);
-		tutor.incGrade(grade);
-		task.incGrade(grade);
-		solution.addCorrection(grade, comment);
-		
-		reviewed = tutor + " reviewed (" + student.getMatNumber() + "," + student.getName() 
-				+ ") with grade " + Integer.toString(grade);
-		return reviewed;
-	}
+		try (TimedCall call = new TimedCall(reviewLatency, lock.readLock())) {
+			if (comment == null) {
+				throw new IllegalArgumentException(error("No comment is given."));
+			} else if (!CommandParser.isGrade(grade)) {
+				throw new IllegalArgumentException(
+						error("Grade must be between 1 and 5."));
+			} else if (!this.containsTask(taskId)) {
+				throw new IllegalArgumentException(error("Task does not exist."));
+			} else if (!this.containsStudent(matNumber)) {
+				throw new IllegalArgumentException(
+						error("Student does not exists."));
+			} else if (!this.containsSolution(taskId, matNumber)) {
+				throw new IllegalArgumentException(
+						error("Solution does not exist."));
+			}
+			Student student = this.findStudent(matNumber);
+			Tutor tutor = this.findTutor(student);
+			Task task = this.findTask(taskId);
+			String reviewed;
+			synchronized (task) {
+				Solution solution = task.findSolution(student);
+				// the record is written first, so a failing journal leaves the
+				// review out of the praktomat as well
+				if (journal != null) {
+					journal.logReview(taskId, matNumber, grade, comment);
+				}
+				synchronized (student) {
+					ranking.remove(student);
+					if (solution.getCorrection() != null) {
+						int oldGrade = solution.getCorrection().getGrade();
+						student.decGrade(oldGrade);
+						tutor.decGrade(oldGrade);
+						task.decGrade(oldGrade);
+						task.decGrade(tutor, oldGrade);
+					} else {
+						tutor.removePendingReview(solution);
+						task.setReviewed(matNumber);
+					}
+					student.incGrade(grade);
+					tutor.incGrade(grade);
+					task.incGrade(grade);
+					task.incGrade(tutor, grade);
+					ranking.add(student);
+					// the transcript reads the correction under the lock of the student
+					solution.addCorrection(grade, comment);
+				}
+			}
 
-	/**
-	 * Lists all students from praktomat with their solution.
-	 * @param taskId task id of the task
-	 * @return all students with their solution
-	 */
-	public List<String> listSolutions(int taskId) {
-		if (!this.containsTask(taskId)) {
-			throw new IllegalArgumentException(error("Task does not exist."));
+			reviewed = tutor + " reviewed (" + student.getMatNumber() + "," + student.getName() 
+					+ ") with grade " + Integer.toString(grade);
+			call.done();
+			return reviewed;
 		}
-		Task task = this.findTask(taskId);
-		return task.listSolutions();
 	}
 
 	/**
-	 * Gives the results for all tasks on.
-	 * @return results of all tasks
+	 * Reviews a batch of solutions, as the command review would do for each
+	 * entry. All entries are checked first, the batch is only applied if no
+	 * entry fails the checks. The changes of the grades are summed up per
+	 * student, tutor, task and tutor in a task and applied once to each of
+	 * them.
+	 * @param taskIds task ids of the solutions
+	 * @param matNumbers matriculation numbers of the students
+	 * @param grades grades for the solutions
+	 * @param comments comments for the solutions
+	 * @param count amount of entries
+	 * @return error message of each entry which fails the checks, null for
+	 *         each other entry; the batch is applied if all are null
 	 */
-	public List<String> results() {
-		List<String> results = new ArrayList<String>();
-		for (Task t : tasks) {
-			results.add(t.toString());
-			for (String s : t.listCorrections()) {
-				results.add(s);
+	public String[] reviewBatch(int[] taskIds, int[] matNumbers, int[] grades,
+			String[] comments, int count) {
+		try (TimedCall call = new TimedCall(reviewBatchLatency, lock.writeLock())) {
+			String[] errors = new String[count];
+			Solution[] solutions = new Solution[count];
+			HashSet<Solution> reviewed = new HashSet<Solution>();
+			boolean valid = true;
+			for (int i = 0; i < count; i++) {
+				errors[i] = this.checkReview(taskIds[i], matNumbers[i], grades[i],
+						comments[i]);
+				if (errors[i] == null) {
+					solutions[i] = this.findTask(taskIds[i])
+							.findSolution(this.findStudent(matNumbers[i]));
+					if (!reviewed.add(solutions[i])) {
+						errors[i] = "Solution is reviewed twice.";
+					}
+				}
+				valid &= errors[i] == null;
+			}
+			if (valid) {
+				this.applyReviews(taskIds, matNumbers, grades, comments, solutions,
+						count);
 			}
+			call.done();
+			return errors;
 		}
-		return results;
 	}
 
 	/**
-	 * Summary of all tasks which contains the number of submitted, reviewed,
-	 * average grade and the distribution.
-	 * @return summary of all tasks
+	 * Checks one entry of a batch of reviews like the command review does.
+	 * @param taskId task id of the task
+	 * @param matNumber matriculation number of the student
+	 * @param grade grade for the solution
+	 * @param comment comment for the solution
+	 * @return error message if the entry fails the checks, null otherwise
 	 */
-	public List<String> summaryTask() {
-		List<String> summaryTask = new ArrayList<String>();
-		for (Task t : tasks) {
-			summaryTask.add(t.toString());
-			for (String s : t.summaryTask()) {
-				summaryTask.add(s);
-			}
+	private String checkReview(int taskId, int matNumber, int grade,
+			String comment) {
+		if (comment == null) {
+			return "No comment is given.";
+		} else if (!CommandParser.isGrade(grade)) {
+			return "Grade must be between 1 and 5.";
+		} else if (taskId < 1 || taskId > tasks.size()) {
+			return "Task does not exist.";
+		}
+		Student student = this.findStudent(matNumber);
+		if (student == null) {
+			return "Student does not exists.";
+		} else if (!this.findTask(taskId).containsStudent(student)) {
+			return "Solution does not exist.";
 		}
-		return summaryTask;
+		return null;
 	}
 
 	/**
-	 * Summary of all students which contains all students with their average grade.
-	 * @return summary of all students
+	 * Applies a checked batch of reviews. The write lock must be held. The
+	 * batch is written to the journal before any change is applied, so a
+	 * failing journal leaves the praktomat unchanged, as with the command
+	 * review.
+	 * @param taskIds task ids of the solutions
+	 * @param matNumbers matriculation numbers of the students
+	 * @param grades grades for the solutions
+	 * @param comments comments for the solutions
+	 * @param solutions reviewed solutions, each at most once
+	 * @param count amount of entries
 	 */
-	public List<String> summaryStudent() {
-		List<String> summaryStudent = new ArrayList<String>();
-		List<Student> avgStud = new ArrayList<Student>();
-		TreeMap<Integer, Student> matStud = new TreeMap<Integer, Student>();
-		double avg;
-
-		DecimalFormat df = new DecimalFormat("0.00", DecimalFormatSymbols.getInstance(Locale.US));
-		df.setRoundingMode(RoundingMode.HALF_UP);
-
-		for (Student s : students.values()) {
-			if (s.averageGrade() > 0) {
-				avgStud.add(s);
-			} else {
-				matStud.put(s.getMatNumber(), s);
+	private void applyReviews(int[] taskIds, int[] matNumbers, int[] grades,
+			String[] comments, Solution[] solutions, int count) {
+		if (journal != null) {
+			journal.beginBatch();
+			try {
+				for (int i = 0; i < count; i++) {
+					journal.logReview(taskIds[i], matNumbers[i], grades[i], comments[i]);
+				}
+			} finally {
+				journal.endBatch();
 			}
 		}
-		Collections.sort(avgStud);
 
-		for (Student s : avgStud) {
-			avg = s.averageGrade();
-			summaryStudent.add("(" + s.getMatNumber() + "," + s.getName()
-					+ "): " + df.format(avg));
+		HashMap<Student, int[]> studentGrades = new HashMap<Student, int[]>();
+		HashMap<Tutor, int[]> tutorGrades = new HashMap<Tutor, int[]>();
+		HashMap<Task, int[]> taskGrades = new HashMap<Task, int[]>();
+		HashMap<Task, HashMap<Tutor, int[]>> tutorTaskGrades
+				= new HashMap<Task, HashMap<Tutor, int[]>>();
+		for (int i = 0; i < count; i++) {
+			Student student = this.findStudent(matNumbers[i]);
+			Tutor tutor = this.findTutor(student);
+			Task task = this.findTask(taskIds[i]);
+			HashMap<Tutor, int[]> cells = tutorTaskGrades.get(task);
+			if (cells == null) {
+				cells = new HashMap<Tutor, int[]>();
+				tutorTaskGrades.put(task, cells);
+			}
+			int[] s = amounts(studentGrades, student);
+			int[] t = amounts(tutorGrades, tutor);
+			int[] k = amounts(taskGrades, task);
+			int[] c = amounts(cells, tutor);
+			Correction correction = solutions[i].getCorrection();
+			if (correction != null) {
+				s[correction.getGrade() - 1]--;
+				t[correction.getGrade() - 1]--;
+				k[correction.getGrade() - 1]--;
+				c[correction.getGrade() - 1]--;
+			}
+			s[grades[i] - 1]++;
+			t[grades[i] - 1]++;
+			k[grades[i] - 1]++;
+			c[grades[i] - 1]++;
 		}
 
-		for (Student s : matStud.values()) {
-			summaryStudent.add("(" + s.getMatNumber() + "," + s.getName()
-					+ "): -");
+		for (int i = 0; i < count; i++) {
+			if (solutions[i].getCorrection() == null) {
+				studTutor.get(matNumbers[i]).removePendingReview(solutions[i]);
+				this.findTask(taskIds[i]).setReviewed(matNumbers[i]);
+			}
+			solutions[i].addCorrection(grades[i], comments[i]);
+		}
+		for (Map.Entry<Task, int[]> e : taskGrades.entrySet()) {
+			Task task = e.getKey();
+			synchronized (task) {
+				task.addGrades(e.getValue());
+				for (Map.Entry<Tutor, int[]> cell : tutorTaskGrades.get(task).entrySet()) {
+					task.addGrades(cell.getKey(), cell.getValue());
+				}
+			}
+		}
+		for (Map.Entry<Tutor, int[]> e : tutorGrades.entrySet()) {
+			e.getKey().addGrades(e.getValue());
+		}
+		for (Map.Entry<Student, int[]> e : studentGrades.entrySet()) {
+			Student student = e.getKey();
+			synchronized (student) {
+				ranking.remove(student);
+				student.addGrades(e.getValue());
+				ranking.add(student);
+			}
 		}
-		return summaryStudent;
+	}
+
+	/**
+	 * Returns the amounts of grades summed up for the given key, created at
+	 * the first use.
+	 * @param <K> type of the key
+	 * @param amounts amounts of grades of all keys
+	 * @param key student, tutor or task
+	 * @return amounts of grades of the key
+	 */
+	private static <K> int[] amounts(Map<K, int[]> amounts, K key) {
+		int[] a = amounts.get(key);
+		if (a == null) {
+			a = new int[5];
+			amounts.put(key, a);
+		}
+		return a;
+	}
+
+	/**
+	 * Returns the oldest submitted solution of the students of the given
+	 * tutor which is not reviewed yet.
+	 * @param tutorName name of the tutor
+	 * @return the solution with its task and student, or null if all
+	 *         solutions of the tutor's students are reviewed
+	 */
+	public PendingReview nextReview(String tutorName) {
+		try (TimedCall call = new TimedCall(nextReviewLatency, lock.readLock())) {
+			PendingReview pendingReview = this.findTutor(tutorName).nextPendingReview();
+			call.done();
+			return pendingReview;
+		}
+	}
+
+	/**
+	 * Returns the amount of submitted solutions of the students of the given
+	 * tutor which are not reviewed yet.
+	 * @param tutorName name of the tutor
+	 * @return amount of missing reviews of the tutor
+	 */
+	public int pendingReviews(String tutorName) {
+		try (TimedCall call = new TimedCall(pendingLatency, lock.readLock())) {
+			int missingReviews = this.findTutor(tutorName).getMissingReviews();
+			call.done();
+			return missingReviews;
+		}
+	}
+
+	/**
+	 * Lists the solutions of the given student with their task ids, grades
+	 * and comments.
+	 * @param matNumber matriculation number of the student
+	 * @return one line per solution of the student in the order of the tasks
+	 */
+	public List<String> transcript(int matNumber) {
+		StringBuilder report = new StringBuilder();
+		try {
+			this.transcript(matNumber, report);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return ReportFormat.lines(report);
+	}
+
+	/**
+	 * Writes the solutions of the given student with their task ids, grades
+	 * and comments, one per line. Only the solutions of the student are
+	 * visited, not the tasks, and only the student is locked, so submits
+	 * and reviews of other students go on meanwhile.
+	 * @param matNumber matriculation number of the student
+	 * @param out output to write to
+	 * @throws IOException if the output cannot be written
+	 */
+	public void transcript(int matNumber, Appendable out) throws IOException {
+		StringBuilder report = new StringBuilder();
+		try (TimedCall call = new TimedCall(transcriptLatency, lock.readLock())) {
+			if (!this.containsStudent(matNumber)) {
+				throw new IllegalArgumentException(error("Student does not exist."));
+			}
+			Student student = this.findStudent(matNumber);
+			synchronized (student) {
+				student.transcript(report);
+			}
+			call.done();
+		}
+		out.append(report);
+	}
+
+	/**
+	 * Lists all students from praktomat with their solution.
+	 * @param taskId task id of the task
+	 * @return all students with their solution
+	 */
+	public List<String> listSolutions(int taskId) {
+		StringBuilder report = new StringBuilder();
+		try {
+			this.listSolutions(taskId, report);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return ReportFormat.lines(report);
+	}
+
+	/**
+	 * Writes all students from praktomat with their solution, one per line.
+	 * @param taskId task id of the task
+	 * @param out output to write to
+	 * @throws IOException if the output cannot be written
+	 */
+	public void listSolutions(int taskId, Appendable out) throws IOException {
+		StringBuilder report = new StringBuilder();
+		try (TimedCall call = new TimedCall(listSolutionsLatency, lock.readLock())) {
+			if (!this.containsTask(taskId)) {
+				throw new IllegalArgumentException(error("Task does not exist."));
+			}
+			Task task = this.findTask(taskId);
+			synchronized (task) {
+				task.listSolutions(report);
+			}
+			call.done();
+		}
+		out.append(report);
+	}
+
+	/**
+	 * Gives the results for all tasks on.
+	 * @return results of all tasks
+	 */
+	public List<String> results() {
+		StringBuilder report = new StringBuilder();
+		try {
+			this.results(report);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return ReportFormat.lines(report);
+	}
+
+	/**
+	 * Writes the results for all tasks, each task followed by its grades.
+	 * @param out output to write to
+	 * @throws IOException if the output cannot be written
+	 */
+	public void results(Appendable out) throws IOException {
+		StringBuilder report = new StringBuilder();
+		try (TimedCall call = new TimedCall(resultsLatency, lock.readLock())) {
+			for (Task t : tasks) {
+				synchronized (t) {
+					t.appendTo(report);
+					ReportFormat.newLine(report);
+					t.listCorrections(report);
+				}
+			}
+			call.done();
+		}
+		out.append(report);
+	}
+
+	/**
+	 * Writes the results for all tasks like {@link #results(Appendable)}, but
+	 * the reports of the tasks are created in parallel by the given pool.
+	 * @param out output to write to
+	 * @param pool pool which creates the reports of the tasks
+	 * @throws IOException if the output cannot be written
+	 */
+	public void results(Appendable out, ForkJoinPool pool) throws IOException {
+		this.reportTasks(out, pool, false, false, resultsLatency);
+	}
+
+	/**
+	 * Summary of all tasks which contains the number of submitted, reviewed,
+	 * average grade and the distribution.
+	 * @return summary of all tasks
+	 */
+	public List<String> summaryTask() {
+		StringBuilder report = new StringBuilder();
+		try {
+			this.summaryTask(report);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return ReportFormat.lines(report);
+	}
+
+	/**
+	 * Writes the summary of all tasks which contains the number of submitted,
+	 * reviewed, average grade and the distribution.
+	 * @param out output to write to
+	 * @throws IOException if the output cannot be written
+	 */
+	public void summaryTask(Appendable out) throws IOException {
+		this.summaryTask(out, false);
+	}
+
+	/**
+	 * Writes the summary of all tasks which contains the number of submitted,
+	 * reviewed, average grade and the distribution, with the details also the
+	 * median, the quartiles and the percentage of failing grades. The details
+	 * are taken from the amount of each grade, no grade is sorted.
+	 * @param out output to write to
+	 * @param detail {@code true} to write the details, {@code false} otherwise
+	 * @throws IOException if the output cannot be written
+	 */
+	public void summaryTask(Appendable out, boolean detail) throws IOException {
+		StringBuilder report = new StringBuilder();
+		try (TimedCall call = new TimedCall(summaryTaskLatency, lock.readLock())) {
+			for (Task t : tasks) {
+				synchronized (t) {
+					t.appendTo(report);
+					ReportFormat.newLine(report);
+					t.summaryTask(report, detail);
+				}
+			}
+			call.done();
+		}
+		out.append(report);
+	}
+
+	/**
+	 * Writes the summary of all tasks like {@link #summaryTask(Appendable)},
+	 * but the reports of the tasks are created in parallel by the given pool.
+	 * @param out output to write to
+	 * @param pool pool which creates the reports of the tasks
+	 * @throws IOException if the output cannot be written
+	 */
+	public void summaryTask(Appendable out, ForkJoinPool pool) throws IOException {
+		this.summaryTask(out, pool, false);
+	}
+
+	/**
+	 * Writes the summary of all tasks like
+	 * {@link #summaryTask(Appendable, boolean)}, but the reports of the tasks
+	 * are created in parallel by the given pool.
+	 * @param out output to write to
+	 * @param pool pool which creates the reports of the tasks
+	 * @param detail {@code true} to write the details, {@code false} otherwise
+	 * @throws IOException if the output cannot be written
+	 */
+	public void summaryTask(Appendable out, ForkJoinPool pool, boolean detail)
+			throws IOException {
+		this.reportTasks(out, pool, true, detail, summaryTaskLatency);
+	}
+
+	/**
+	 * Creates the reports of all tasks in parallel and writes them in the
+	 * order of the task ids. Only a window of a few tasks per thread is kept
+	 * in memory at the same time. The read lock is taken for each window and
+	 * released before the window is written.
+	 * @param out output to write to
+	 * @param pool pool which creates the reports of the tasks
+	 * @param summary {@code true} for summary-task, {@code false} for results
+	 * @param detail {@code true} for the summary with its details,
+	 *        {@code false} otherwise
+	 * @param histogram histogram of the operation
+	 * @throws IOException if the output cannot be written
+	 */
+	private void reportTasks(Appendable out, ForkJoinPool pool, boolean summary,
+			boolean detail, LatencyHistogram histogram) throws IOException {
+		try (TimedCall call = new TimedCall(histogram)) {
+			int window = pool.getParallelism() * TASKS_PER_THREAD;
+			for (int from = 0;; from += window) {
+				StringBuilder[] blocks;
+				lock.readLock().lock();
+				try {
+					if (from >= tasks.size()) {
+						break;
+					}
+					int to = Math.min(tasks.size(), from + window);
+					blocks = new StringBuilder[to - from];
+					pool.invoke(new TaskReport(tasks, from, to, blocks, summary, detail));
+				} finally {
+					lock.readLock().unlock();
+				}
+				for (StringBuilder block : blocks) {
+					out.append(block);
+				}
+			}
+			call.done();
+		}
+	}
+
+	/**
+	 * Summary of all students which contains all students with their average grade.
+	 * @return summary of all students
+	 */
+	public List<String> summaryStudent() {
+		StringBuilder report = new StringBuilder();
+		try {
+			this.summaryStudent(report);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return ReportFormat.lines(report);
+	}
+
+	/**
+	 * Writes the summary of all students which contains all students with
+	 * their average grade. The graded students come first, the best first.
+	 * Reviews go on meanwhile, so a student reviewed during the summary may
+	 * be written with his grade before or after the review, or after the
+	 * others, but every student is written once.
+	 * @param out output to write to
+	 * @throws IOException if the output cannot be written
+	 */
+	public void summaryStudent(Appendable out) throws IOException {
+		StringBuilder report = new StringBuilder();
+		try (TimedCall call = new TimedCall(summaryStudentLatency, lock.readLock())) {
+			HashSet<Student> written = new HashSet<Student>();
+			this.summaryStudent(ranking.students(), written, report);
+			for (Student s : students.values()) {
+				if (written.add(s)) {
+					double average;
+					synchronized (s) {
+						average = s.averageGrade();
+					}
+					this.appendStudent(report, s);
+					if (average > 0) {
+						ReportFormat.appendGrade(report, average);
+					} else {
+						report.append('-');
+					}
+					ReportFormat.newLine(report);
+				}
+			}
+			call.done();
+		}
+		out.append(report);
+	}
+
+	/**
+	 * Lists the best graded students with their average grade, like
+	 * summary-student does.
+	 * @param k maximum amount of students
+	 * @return up to k students, the best first
+	 */
+	public List<String> bestStudents(int k) {
+		StringBuilder report = new StringBuilder();
+		try {
+			this.bestStudents(k, report);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return ReportFormat.lines(report);
+	}
+
+	/**
+	 * Writes the best graded students with their average grade, like
+	 * summary-student does.
+	 * @param k maximum amount of students
+	 * @param out output to write to
+	 * @throws IOException if the output cannot be written
+	 */
+	public void bestStudents(int k, Appendable out) throws IOException {
+		this.rankStudents(k, true, out);
+	}
+
+	/**
+	 * Lists the worst graded students with their average grade, like
+	 * summary-student does.
+	 * @param k maximum amount of students
+	 * @return up to k students, the worst first
+	 */
+	public List<String> worstStudents(int k) {
+		StringBuilder report = new StringBuilder();
+		try {
+			this.worstStudents(k, report);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return ReportFormat.lines(report);
+	}
+
+	/**
+	 * Writes the worst graded students with their average grade, like
+	 * summary-student does.
+	 * @param k maximum amount of students
+	 * @param out output to write to
+	 * @throws IOException if the output cannot be written
+	 */
+	public void worstStudents(int k, Appendable out) throws IOException {
+		this.rankStudents(k, false, out);
+	}
+
+	/**
+	 * Writes the best or the worst graded students.
+	 * @param k maximum amount of students
+	 * @param best {@code true} for the best, {@code false} for the worst students
+	 * @param out output to write to
+	 * @throws IOException if the output cannot be written
+	 */
+	private void rankStudents(int k, boolean best, Appendable out)
+			throws IOException {
+		StringBuilder report = new StringBuilder();
+		try (TimedCall call = new TimedCall(rankStudentsLatency, lock.readLock())) {
+			if (k < 1) {
+				throw new IllegalArgumentException(
+						error("Amount of students must be a number > 0."));
+			}
+			this.summaryStudent(best ? ranking.best(k) : ranking.worst(k),
+					new HashSet<Student>(), report);
+			call.done();
+		}
+		out.append(report);
+	}
+
+	/**
+	 * Writes the given graded students with their average grade, each under
+	 * his lock. A student met twice, as he was reviewed meanwhile, is written
+	 * once.
+	 * @param graded graded students in the order of the list
+	 * @param written students written so far, the written ones are added
+	 * @param out output to write to
+	 * @throws IOException if the output cannot be written
+	 */
+	private void summaryStudent(Collection<Student> graded,
+			HashSet<Student> written, Appendable out) throws IOException {
+		for (Student s : graded) {
+			if (written.add(s)) {
+				double average;
+				synchronized (s) {
+					average = s.averageGrade();
+				}
+				this.appendStudent(out, s);
+				ReportFormat.appendGrade(out, average);
+				ReportFormat.newLine(out);
+			}
+		}
+	}
+
+	/**
+	 * Writes the matriculation number and name of the student like
+	 * {@code (12345,name): }.
+	 * @param out output to write to
+	 * @param s student to write
+	 * @throws IOException if the output cannot be written
+	 */
+	private void appendStudent(Appendable out, Student s) throws IOException {
+		out.append('(');
+		ReportFormat.appendInt(out, s.getMatNumber());
+		out.append(',').append(s.getName()).append("): ");
 	}
 
 	/**
@@ -333,63 +1419,473 @@ public class Praktomat {
 	 * @return summary of all tutors
 	 */
 	public List<String> summaryTutor() {
-		List<String> summaryTutor = new ArrayList<String>();
-		int missingStud = 0;
-		String avgStr;
+		StringBuilder report = new StringBuilder();
+		try {
+			this.summaryTutor(report);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return ReportFormat.lines(report);
+	}
 
-		DecimalFormat df = new DecimalFormat("0.00", DecimalFormatSymbols.getInstance(Locale.US));
-		df.setRoundingMode(RoundingMode.HALF_UP);
+	/**
+	 * Writes the summary of all tutors which contains the tutor names, amount
+	 * of their students, missing reviews, and the average grade given from the
+	 * tutor.
+	 * @param out output to write to
+	 * @throws IOException if the output cannot be written
+	 */
+	public void summaryTutor(Appendable out) throws IOException {
+		this.summaryTutor(out, false);
+	}
 
-		Collections.sort(tutors);
-		for (Tutor t : tutors) {
-			if (t.averageGrade() < 0) {
-				avgStr = "-";
-			} else {
-				avgStr = df.format(t.averageGrade());
+	/**
+	 * Writes the summary of all tutors which contains the tutor names, amount
+	 * of their students, missing reviews, and the average grade given from
+	 * the tutor, with the details also the median, the quartiles and the
+	 * percentage of failing grades given from the tutor.
+	 * @param out output to write to
+	 * @param detail {@code true} to write the details, {@code false} otherwise
+	 * @throws IOException if the output cannot be written
+	 */
+	public void summaryTutor(Appendable out, boolean detail) throws IOException {
+		StringBuilder report = new StringBuilder();
+		try (TimedCall call = new TimedCall(summaryTutorLatency, lock.readLock())) {
+			for (Tutor t : this.sortedTutors()) {
+				this.appendTutor(report, t);
+				if (detail) {
+					GradeStatistics.appendDetail(report, t.getGrades());
+				}
 			}
+			call.done();
+		}
+		out.append(report);
+	}
+
+	/**
+	 * Returns the tutors sorted by their names. The tutors of the praktomat
+	 * stay in their order, as the read lock does not allow to change them.
+	 * @return sorted copy of the tutors
+	 */
+	private List<Tutor> sortedTutors() {
+		List<Tutor> sorted = new ArrayList<Tutor>(tutors);
+		Collections.sort(sorted);
+		return sorted;
+	}
+
+	/**
+	 * Writes the name of the tutor, the amount of his students, missing
+	 * reviews and his average grade on a line of its own.
+	 * @param out output to write to
+	 * @param t tutor to write
+	 * @throws IOException if the output cannot be written
+	 */
+	private void appendTutor(Appendable out, Tutor t) throws IOException {
+		out.append(t.getName()).append(": ");
+		ReportFormat.appendInt(out, t.getStudents().size());
+		out.append(" students, ");
+		ReportFormat.appendInt(out, t.getMissingReviews());
+		out.append(" missing review(s), average grade ");
+		if (t.averageGrade() < 0) {
+			out.append('-');
+		} else {
+			ReportFormat.appendGrade(out, t.averageGrade());
+		}
+		ReportFormat.newLine(out);
+	}
+
+	/**
+	 * Summary of the grades the given tutor has given in the given task, which
+	 * contains the number of reviewed, average grade and the distribution.
+	 * @param tutorName name of the tutor
+	 * @param taskId task id of the task
+	 * @return summary of the tutor in the task
+	 */
+	public List<String> summaryTutorTask(String tutorName, int taskId) {
+		StringBuilder report = new StringBuilder();
+		try {
+			this.summaryTutorTask(tutorName, taskId, report);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return ReportFormat.lines(report);
+	}
+
+	/**
+	 * Writes the summary of the grades the given tutor has given in the given
+	 * task, which contains the number of reviewed, average grade and the
+	 * distribution. The grades are kept per tutor and task as they are given,
+	 * so no solution is visited.
+	 * @param tutorName name of the tutor
+	 * @param taskId task id of the task
+	 * @param out output to write to
+	 * @throws IOException if the output cannot be written
+	 */
+	public void summaryTutorTask(String tutorName, int taskId, Appendable out)
+			throws IOException {
+		StringBuilder report = new StringBuilder();
+		try (TimedCall call = new TimedCall(summaryTutorTaskLatency, lock.readLock())) {
+			Tutor tutor = this.findTutor(tutorName);
+			if (!this.containsTask(taskId)) {
+				throw new IllegalArgumentException(error("Task does not exist."));
+			}
+			Task task = this.findTask(taskId);
+			synchronized (task) {
+				task.summaryTutor(tutor, report);
+			}
+			call.done();
+		}
+		out.append(report);
+	}
+
+	/**
+	 * Compares the average grade of each tutor in each task with the average
+	 * grade of the task.
+	 * @return comparison of the tutors in all tasks
+	 */
+	public List<String> compareTutors() {
+		StringBuilder report = new StringBuilder();
+		try {
+			this.compareTutors(report);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return ReportFormat.lines(report);
+	}
 
-			missingStud = 0;
+	/**
+	 * Writes each task followed by the tutors who have given grades in it,
+	 * one per line with the amount of their grades, their average grade, the
+	 * average grade of the task and the difference of both.
+	 * @param out output to write to
+	 * @throws IOException if the output cannot be written
+	 */
+	public void compareTutors(Appendable out) throws IOException {
+		StringBuilder report = new StringBuilder();
+		try (TimedCall call = new TimedCall(compareTutorsLatency, lock.readLock())) {
+			List<Tutor> sorted = this.sortedTutors();
 			for (Task task : tasks) {
-				for (Student stud : t.getStudents()) {
-					if (task.containsStudent(stud)) {
-						if (task.findSolution(stud).getCorrection() == null) {
-							missingStud++;
-						}
-					}
+				synchronized (task) {
+					this.compareTutors(task, sorted, report);
 				}
 			}
+			call.done();
+		}
+		out.append(report);
+	}
 
-			summaryTutor.add(t.getName() + ": "
-					+ Integer.toString(t.getStudents().size()) + " students, "
-					+ Integer.toString(missingStud)
-					+ " missing review(s), average grade " + (avgStr));
+	/**
+	 * Writes the task followed by the tutors who have given grades in it,
+	 * like compare-tutors does. The lock of the task must be held.
+	 * @param task task to compare the tutors in
+	 * @param tutors tutors sorted by their names
+	 * @param out output to write to
+	 * @throws IOException if the output cannot be written
+	 */
+	private void compareTutors(Task task, List<Tutor> tutors, Appendable out)
+			throws IOException {
+		task.appendTo(out);
+		ReportFormat.newLine(out);
+		double taskAvg = task.averageGrade();
+		for (Tutor t : tutors) {
+			double avg = task.averageGrade(t);
+			if (avg < 0) {
+				continue;
+			}
+			int[] grades = task.getGrades(t);
+			double difference = avg - taskAvg;
+			out.append(t.getName()).append(": ");
+			ReportFormat.appendInt(out,
+					grades[0] + grades[1] + grades[2] + grades[3] + grades[4]);
+			out.append(" review(s), average grade ");
+			ReportFormat.appendGrade(out, avg);
+			out.append(", task ");
+			ReportFormat.appendGrade(out, taskAvg);
+			out.append(", difference ");
+			out.append(difference < 0 ? '-' : '+');
+			ReportFormat.appendGrade(out, Math.abs(difference));
+			ReportFormat.newLine(out);
 		}
-		return summaryTutor;
 	}
 
 	/**
-	 * Finds the student.
-	 * @param matNumber matriculation number of the student
-	 * @return student
+	 * Writes the graded students whose average grade compares to the given
+	 * grade like summary-student does, in ascending order of their average
+	 * grade. The students are taken from the range of the ranking, so only
+	 * the matching students and those next to the bound are visited. Reviews
+	 * go on meanwhile, so a student reviewed during the query may be left out
+	 * or written with his grade before or after the review, but never twice.
+	 * @param comparison one of {@code <}, {@code <=}, {@code >} and {@code >=}
+	 * @param grade grade to compare the average grades with
+	 * @param out output to write to
+	 * @throws IOException if the output cannot be written
 	 */
-	private Student findStudent(int matNumber) {
-		Student student = null;
-		for (Student s : students.values()) {
-			if (s.getMatNumber() == matNumber) {
-				student = s;
+	public void queryStudents(String comparison, double grade, Appendable out)
+			throws IOException {
+		StringBuilder report = new StringBuilder();
+		try (TimedCall call = new TimedCall(queryLatency, lock.readLock())) {
+			if (!CommandParser.isComparison(comparison)) {
+				throw new IllegalArgumentException(
+						error("Comparison must be <, <=, > or >=."));
+			}
+			Collection<Student> range = comparison.charAt(0) == '>'
+					? ranking.from(grade) : ranking.to(grade);
+			HashSet<Student> written = new HashSet<Student>();
+			for (Student s : range) {
+				double average;
+				synchronized (s) {
+					average = s.averageGrade();
+				}
+				if (compare(average, comparison, grade) && written.add(s)) {
+					this.appendStudent(report, s);
+					ReportFormat.appendGrade(report, average);
+					ReportFormat.newLine(report);
+				}
 			}
+			call.done();
 		}
-		return student;
+		out.append(report);
+	}
+
+	/**
+	 * Writes the tutors whose missing reviews or average grade compare to the
+	 * given value like summary-tutor does. Tutors without a grade have no
+	 * average grade and never match it.
+	 * @param missing {@code true} to compare the missing reviews,
+	 *        {@code false} to compare the average grade
+	 * @param comparison one of {@code <}, {@code <=}, {@code >} and {@code >=}
+	 * @param value value to compare with
+	 * @param out output to write to
+	 * @throws IOException if the output cannot be written
+	 */
+	public void queryTutors(boolean missing, String comparison, double value,
+			Appendable out) throws IOException {
+		StringBuilder report = new StringBuilder();
+		try (TimedCall call = new TimedCall(queryLatency, lock.readLock())) {
+			if (!CommandParser.isComparison(comparison)) {
+				throw new IllegalArgumentException(
+						error("Comparison must be <, <=, > or >=."));
+			}
+			for (Tutor t : this.sortedTutors()) {
+				double tutorValue = missing ? t.getMissingReviews() : t.averageGrade();
+				if (tutorValue >= 0 && compare(tutorValue, comparison, value)) {
+					this.appendTutor(report, t);
+				}
+			}
+			call.done();
+		}
+		out.append(report);
 	}
 
 	/**
-	 * Finds the solution.
+	 * Writes the solutions of the given task with their students like
+	 * list-solutions does, optionally only those of the students of a tutor
+	 * or only the reviewed or not reviewed ones. The solutions are taken from
+	 * the review state of the task, intersected with the students of the
+	 * tutor, so only the matching solutions are visited. Only the task is
+	 * locked, so submits and reviews of other tasks go on meanwhile.
 	 * @param taskId task id of the task
+	 * @param tutorName name of the tutor, or null for the students of all
+	 *        tutors
+	 * @param reviewed {@code true} for the reviewed solutions, {@code false}
+	 *        for the others, or null for all solutions
+	 * @param out output to write to
+	 * @throws IOException if the output cannot be written
+	 */
+	public void querySolutions(int taskId, String tutorName, Boolean reviewed,
+			Appendable out) throws IOException {
+		StringBuilder report = new StringBuilder();
+		try (TimedCall call = new TimedCall(queryLatency, lock.readLock())) {
+			if (!this.containsTask(taskId)) {
+				throw new IllegalArgumentException(error("Task does not exist."));
+			}
+			Task task = this.findTask(taskId);
+			Tutor tutor = tutorName != null ? this.findTutor(tutorName) : null;
+			synchronized (task) {
+				if (tutor != null) {
+					task.listSolutions(report, tutor.getMatNumbers(), reviewed);
+				} else if (reviewed != null) {
+					task.listSolutions(report, reviewed);
+				} else {
+					task.listSolutions(report);
+				}
+			}
+			call.done();
+		}
+		out.append(report);
+	}
+
+	/**
+	 * Compares a value with a bound.
+	 * @param value value to compare
+	 * @param comparison one of {@code <}, {@code <=}, {@code >} and {@code >=}
+	 * @param bound bound to compare with
+	 * @return {@code true} if the comparison holds, {@code false} otherwise
+	 */
+	private static boolean compare(double value, String comparison, double bound) {
+		if (comparison.charAt(0) == '<') {
+			return comparison.length() == 1 ? value < bound : value <= bound;
+		}
+		return comparison.length() == 1 ? value > bound : value >= bound;
+	}
+
+	/**
+	 * Statistics of the praktomat which contains the amount of tutors,
+	 * students, tasks, solutions and missing reviews and the sharing of the
+	 * solution texts, followed by the amount of calls, errors and the
+	 * latencies of each operation called so far.
+	 * @return statistics of the praktomat
+	 */
+	public List<String> stats() {
+		lock.writeLock().lock();
+		try {
+			int solutions = 0;
+			for (Task t : tasks) {
+				solutions += t.getSubmissions().size();
+			}
+			int missingReviews = 0;
+			for (Tutor t : tutors) {
+				missingReviews += t.getMissingReviews();
+			}
+
+			List<String> stats = new ArrayList<String>();
+			stats.add(tutors.size() + " tutors, " + students.size() + " students, "
+					+ tasks.size() + " tasks, " + solutions + " solutions, "
+					+ missingReviews + " missing review(s)");
+			stats.add(solutionTexts.toString());
+			stats.addAll(metrics.report("operation "));
+			return stats;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the tutors of this praktomat to write a snapshot.
+	 * @return list of all tutors
+	 */
+	List<Tutor> getTutors() {
+		return this.tutors;
+	}
+
+	/**
+	 * Returns the last added or selected tutor to write a snapshot.
+	 * @return current tutor, or {@code null}
+	 */
+	Tutor getCurrentTutor() {
+		return this.currentTutor;
+	}
+
+	/**
+	 * Returns the epoch of the journal whose records are contained, to write
+	 * a snapshot.
+	 * @return epoch of the contained records, 0 if there are none
+	 */
+	long getSnapshotEpoch() {
+		return this.snapshotEpoch;
+	}
+
+	/**
+	 * Returns the tasks of this praktomat to write a snapshot.
+	 * @return list of all tasks
+	 */
+	List<Task> getTasks() {
+		return this.tasks;
+	}
+
+	/**
+	 * Adds a tutor read from a snapshot without any checks.
+	 * @param tutorName name of the tutor
+	 * @return the new tutor
+	 */
+	Tutor restoreTutor(String tutorName) {
+		Tutor tutor = new Tutor(tutorName);
+		tutors.add(tutor);
+		tutorsByName.put(tutorName, tutor);
+		return tutor;
+	}
+
+	/**
+	 * Adds a student of the given tutor read from a snapshot without any checks.
+	 * @param tutor tutor of the student
+	 * @param matNumber matriculation number of student
+	 * @param studentName name of student
+	 * @param grades amount of each grade of the student, the grade 1 at index 0
+	 * @return the new student
+	 */
+	Student restoreStudent(Tutor tutor, int matNumber, String studentName,
+			int[] grades) {
+		Student student = new Student(studentName, matNumber);
+		student.setGrades(grades);
+		ranking.add(student);
+		students.put(matNumber, student);
+		studTutor.put(matNumber, tutor);
+		tutor.addStudent(student);
+		return student;
+	}
+
+	/**
+	 * Adds a task read from a snapshot without any checks.
+	 * @param taskName name of task
+	 * @return the new task
+	 */
+	Task restoreTask(String taskName) {
+		Task task = new Task(tasks.size() + 1, taskName, solutionTexts);
+		tasks.add(task);
+		return task;
+	}
+
+	/**
+	 * Selects the current tutor read from a snapshot.
+	 * @param tutor current tutor
+	 */
+	void restoreCurrentTutor(Tutor tutor) {
+		this.currentTutor = tutor;
+	}
+
+	/**
+	 * Sets the epoch of the journal whose records are contained in the
+	 * snapshot read.
+	 * @param epoch epoch of the contained records
+	 */
+	void restoreSnapshotEpoch(long epoch) {
+		this.snapshotEpoch = epoch;
+	}
+
+	/**
+	 * Initializes an empty praktomat.
+	 */
+	private void init() {
+		this.tutors = new LinkedList<Tutor>();
+		this.tutorsByName = new HashMap<String, Tutor>();
+		this.students = new TreeMap<Integer, Student>();
+		this.tasks = new ArrayList<Task>();
+		this.studTutor = new HashMap<Integer, Tutor>();
+		this.ranking = new StudentRanking();
+		this.solutionTexts = new SolutionStore(compressSolutionTexts);
+		this.currentTutor = null;
+	}
+
+	/**
+	 * Finds the student.
 	 * @param matNumber matriculation number of the student
-	 * @return solution
+	 * @return student
 	 */
-	private Solution findSolution(int taskId, int matNumber) {
-		return this.findTask(taskId).findSolution(this.findStudent(matNumber));
+	private Student findStudent(int matNumber) {
+		return students.get(matNumber);
+	}
+
+	/**
+	 * Finds the tutor by his name.
+	 * @param tutorName name of the tutor
+	 * @return tutor
+	 */
+	private Tutor findTutor(String tutorName) {
+		Tutor tutor = tutorsByName.get(tutorName);
+		if (tutor == null) {
+			throw new IllegalArgumentException(error("Tutor does not exist."));
+		}
+		return tutor;
 	}
 
 	/**
@@ -399,13 +1895,7 @@ public class Praktomat {
 	 */
 	private Tutor findTutor(Student student) {
 		assert student != null;
-		Tutor tutor = null;
-		for (Tutor t : tutors) {
-			if (t.containsStudent(student)) {
-				tutor = t;
-			}
-		}
-		return tutor;
+		return studTutor.get(student.getMatNumber());
 	}
 
 	/**
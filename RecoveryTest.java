@@ -0,0 +1,231 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class restarts a praktomat from its snapshot and journal after the
+ * commands snapshot and reset, and after crashes between writing the snapshot
+ * and clearing the journal. A crash is simulated by putting back the journal
+ * as it was before the snapshot. After each restart the students of the
+ * praktomat are compared with the expected ones. A record which cannot be
+ * written must leave the students unchanged, and the missing reviews must
+ * keep their order in the snapshot.
+ * @author Florian Mueller
+ */
+public final class RecoveryTest {
+
+	/** journal of the running praktomat, null if none is running */
+	private static Journal journal;
+
+	/**
+	 * Private Constructor. This is a Utility class that should not be
+	 * instantiated.
+	 */
+	private RecoveryTest() {
+	}
+
+	/**
+	 * main method - runs all cases in a temporary directory and prints the
+	 * result of each.
+	 * @param args no arguments
+	 * @throws IOException if the files cannot be written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 0) {
+			System.out.println("Error! Wrong number of parameters.");
+			return;
+		}
+		File dir = Files.createTempDirectory("praktomat-recovery").toFile();
+		File snapshot = new File(dir, "praktomat.snapshot");
+		File journalFile = new File(dir, "praktomat.journal");
+		File copy = new File(dir, "praktomat.journal.copy");
+		try {
+			// records behind the snapshot are replayed on it
+			Praktomat praktomat = restart(snapshot, journalFile);
+			praktomat.addTutor("anna");
+			praktomat.addStudent(11111, "otto");
+			praktomat.writeSnapshot(snapshot);
+			praktomat.addStudent(22222, "paula");
+			check("snapshot and journal", restart(snapshot, journalFile),
+					"(11111,otto): anna", "(22222,paula): anna");
+			clean(snapshot, journalFile);
+
+			// the students removed by reset are neither in the snapshot nor
+			// in the journal
+			praktomat = restart(snapshot, journalFile);
+			praktomat.addTutor("anna");
+			praktomat.addStudent(11111, "otto");
+			praktomat.writeSnapshot(snapshot);
+			praktomat.reset(snapshot);
+			praktomat.addTutor("bert");
+			praktomat.addStudent(22222, "paula");
+			check("snapshot and reset", restart(snapshot, journalFile),
+					"(22222,paula): bert");
+			clean(snapshot, journalFile);
+
+			// a crash after the snapshot leaves the records it contains
+			praktomat = restart(snapshot, journalFile);
+			praktomat.addTutor("anna");
+			praktomat.addStudent(11111, "otto");
+			Files.copy(journalFile.toPath(), copy.toPath(),
+					StandardCopyOption.REPLACE_EXISTING);
+			praktomat.writeSnapshot(snapshot);
+			crash(journalFile, copy);
+			praktomat = restart(snapshot, journalFile);
+			check("crash after snapshot", praktomat, "(11111,otto): anna");
+			praktomat.addStudent(22222, "paula");
+			check("records after the crash", restart(snapshot, journalFile),
+					"(11111,otto): anna", "(22222,paula): anna");
+			clean(snapshot, journalFile);
+
+			// a crash after the empty snapshot of reset leaves the records it
+			// removed
+			praktomat = restart(snapshot, journalFile);
+			praktomat.addTutor("anna");
+			praktomat.addStudent(11111, "otto");
+			Files.copy(journalFile.toPath(), copy.toPath(),
+					StandardCopyOption.REPLACE_EXISTING);
+			praktomat.reset(snapshot);
+			crash(journalFile, copy);
+			check("crash after reset", restart(snapshot, journalFile));
+			clean(snapshot, journalFile);
+
+			// a record which cannot be written leaves the praktomat unchanged
+			praktomat = restart(snapshot, journalFile);
+			praktomat.addTutor("anna");
+			praktomat.addStudent(11111, "otto");
+			journal.close();
+			try {
+				praktomat.addStudent(22222, "paula");
+			} catch (IllegalStateException e) {
+				// the journal is closed
+			}
+			check("failing journal", praktomat, "(11111,otto): anna");
+			check("restart after the failing journal",
+					restart(snapshot, journalFile), "(11111,otto): anna");
+			clean(snapshot, journalFile);
+
+			// the snapshot keeps the missing reviews in the order of the submits
+			praktomat = restart(snapshot, journalFile);
+			praktomat.addTutor("anna");
+			praktomat.addStudent(11111, "otto");
+			praktomat.addStudent(22222, "paula");
+			praktomat.addTask("first");
+			praktomat.addTask("second");
+			praktomat.submit(2, 22222, "a");
+			praktomat.submit(1, 11111, "b");
+			praktomat.submit(2, 11111, "c");
+			praktomat.writeSnapshot(snapshot);
+			checkReviews("missing reviews after the snapshot",
+					restart(snapshot, journalFile), "anna", "2:22222", "1:11111",
+					"2:11111");
+			clean(snapshot, journalFile);
+		} finally {
+			if (journal != null) {
+				journal.close();
+			}
+			copy.delete();
+			clean(snapshot, journalFile);
+			dir.delete();
+		}
+	}
+
+	/**
+	 * Stops the running praktomat and starts it again from the snapshot, if
+	 * there is one, and the journal.
+	 * @param snapshot file of the snapshot
+	 * @param journalFile file of the journal
+	 * @return the started praktomat
+	 * @throws IOException if the snapshot or the journal cannot be read
+	 */
+	private static Praktomat restart(File snapshot, File journalFile)
+			throws IOException {
+		if (journal != null) {
+			journal.close();
+		}
+		Praktomat praktomat = snapshot.exists() ? Snapshot.read(snapshot)
+				: new Praktomat();
+		journal = new Journal(journalFile, Journal.SyncPolicy.ALWAYS, 0);
+		praktomat.setJournal(journal);
+		return praktomat;
+	}
+
+	/**
+	 * Stops the running praktomat as if it crashed before its journal was
+	 * cleared, by putting back the copy of the journal.
+	 * @param journalFile file of the journal
+	 * @param copy copy of the journal taken before the snapshot
+	 * @throws IOException if the journal cannot be put back
+	 */
+	private static void crash(File journalFile, File copy) throws IOException {
+		journal.close();
+		journal = null;
+		Files.copy(copy.toPath(), journalFile.toPath(),
+				StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Stops the running praktomat and removes its snapshot and journal.
+	 * @param snapshot file of the snapshot
+	 * @param journalFile file of the journal
+	 * @throws IOException if the journal cannot be closed
+	 */
+	private static void clean(File snapshot, File journalFile) throws IOException {
+		if (journal != null) {
+			journal.close();
+			journal = null;
+		}
+		snapshot.delete();
+		journalFile.delete();
+	}
+
+	/**
+	 * Reviews the missing reviews of the tutor one after the other, compares
+	 * their order with the expected one and prints the result.
+	 * @param name name of the case
+	 * @param praktomat praktomat to check
+	 * @param tutorName name of the tutor
+	 * @param reviews expected task ids and matriculation numbers like
+	 *        {@code 1:12345}, the oldest first
+	 */
+	private static void checkReviews(String name, Praktomat praktomat,
+			String tutorName, String... reviews) {
+		List<String> reviewed = new ArrayList<String>();
+		PendingReview next;
+		while ((next = praktomat.nextReview(tutorName)) != null) {
+			int taskId = next.getTask().getTaskNumber();
+			int matNumber = next.getStudent().getMatNumber();
+			reviewed.add(taskId + ":" + matNumber);
+			praktomat.review(taskId, matNumber, 1, "ok");
+		}
+		if (reviewed.equals(Arrays.asList(reviews))) {
+			System.out.println(name + ": ok");
+		} else {
+			System.out.println("Error! " + name + ": " + reviewed + " instead of "
+					+ Arrays.asList(reviews) + ".");
+		}
+	}
+
+	/**
+	 * Compares the students of the praktomat with the expected ones and
+	 * prints the result.
+	 * @param name name of the case
+	 * @param praktomat praktomat to check
+	 * @param students expected lines of list-students
+	 */
+	private static void check(String name, Praktomat praktomat,
+			String... students) {
+		List<String> listed = praktomat.listStudents();
+		if (listed.equals(Arrays.asList(students))) {
+			System.out.println(name + ": ok");
+		} else {
+			System.out.println("Error! " + name + ": " + listed + " instead of "
+					+ Arrays.asList(students) + ".");
+		}
+	}
+
+}
@@ -0,0 +1,115 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class writes the numbers of the reports without creating objects. The
+ * average grades are rounded exactly like {@code DecimalFormat("0.00")} with
+ * {@link java.math.RoundingMode#HALF_UP} does it, that is from the exact
+ * binary value of the double.
+ * @author Florian Mueller
+ */
+public final class ReportFormat {
+
+	/** separator of the lines of a report */
+	public static final String LINE_SEPARATOR = System.lineSeparator();
+
+	/** smallest value which is not rounded to 0.00 is 0.005, values below are */
+	private static final double ROUNDED_TO_ZERO = 0.004;
+
+	/** largest value which can be formatted */
+	private static final double MAX_VALUE = 1e9;
+
+	/**
+	 * Private Constructor. This is a Utility class that should not be
+	 * instantiated.
+	 */
+	private ReportFormat() {
+	}
+
+	/**
+	 * Writes a number with two decimal places, rounded half up.
+	 * @param out output to write to
+	 * @param value number between 0 and 10^9
+	 * @throws IOException if the output cannot be written
+	 */
+	public static void appendGrade(Appendable out, double value) throws IOException {
+		long hundredths = hundredths(value);
+		appendInt(out, hundredths / 100);
+		out.append('.');
+		out.append((char) ('0' + hundredths / 10 % 10));
+		out.append((char) ('0' + hundredths % 10));
+	}
+
+	/**
+	 * Writes a number without leading zeros.
+	 * @param out output to write to
+	 * @param value number to write
+	 * @throws IOException if the output cannot be written
+	 */
+	public static void appendInt(Appendable out, long value) throws IOException {
+		if (value < 0) {
+			out.append('-');
+		} else {
+			value = -value;
+		}
+		// the digits are taken from the negative value to cover Long.MIN_VALUE
+		long divisor = 1;
+		while (value / divisor <= -10) {
+			divisor *= 10;
+		}
+		while (divisor > 0) {
+			out.append((char) ('0' - value / divisor));
+			value %= divisor;
+			divisor /= 10;
+		}
+	}
+
+	/**
+	 * Ends a line of a report.
+	 * @param out output to write to
+	 * @throws IOException if the output cannot be written
+	 */
+	public static void newLine(Appendable out) throws IOException {
+		out.append(LINE_SEPARATOR);
+	}
+
+	/**
+	 * Splits a written report into its lines.
+	 * @param report report, each line ends with {@link #LINE_SEPARATOR}
+	 * @return lines of the report
+	 */
+	public static List<String> lines(CharSequence report) {
+		List<String> lines = new ArrayList<String>();
+		String s = report.toString();
+		int start = 0;
+		int end;
+		while ((end = s.indexOf(LINE_SEPARATOR, start)) >= 0) {
+			lines.add(s.substring(start, end));
+			start = end + LINE_SEPARATOR.length();
+		}
+		return lines;
+	}
+
+	/**
+	 * Returns the value in hundredths, rounded half up. The double is
+	 * value = mantissa / 2^shift, so value * 100 + 1/2 is
+	 * (200 * mantissa + 2^shift) / 2^(shift + 1), which is exact in longs for
+	 * values between 0.004 and 10^9.
+	 * @param value number between 0 and 10^9
+	 * @return value * 100 rounded half up
+	 */
+	private static long hundredths(double value) {
+		if (!(value >= 0 && value < MAX_VALUE)) {
+			throw new IllegalArgumentException(
+					"Error! Number must be between 0 and 10^9.");
+		} else if (value < ROUNDED_TO_ZERO) {
+			return 0;
+		}
+		long bits = Double.doubleToRawLongBits(value);
+		long mantissa = bits & 0xfffffffffffffL | 0x10000000000000L;
+		int shift = 1075 - (int) (bits >>> 52);
+		return (200 * mantissa + (1L << shift)) >>> (shift + 1);
+	}
+
+}
@@ -0,0 +1,131 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This class implements a server which offers the commands of the shell to
+ * many clients at the same time. Every connection speaks the protocol of the
+ * interactive shell: the server sends the prompt, the client sends one command
+ * per line and receives the output of the command followed by the next prompt.
+ * Clients may send several commands before reading the replies.
+ * <p>
+ * Each connection has its own {@link Session}, so the tutor selected by a
+ * client is not changed by the other clients. The commands reset and snapshot
+ * are not offered, as they would affect all clients.
+ * <p>
+ * Each connection is handled by its own virtual thread if the Java runtime
+ * supports them, otherwise by a thread of a cached thread pool.
+ * @author Florian Mueller
+ */
+public final class Server {
+
+	/** maximum amount of connections waiting to be accepted */
+	private static final int BACKLOG = 4096;
+
+	/** size of the input and output buffer of a connection */
+	private static final int BUFFER_SIZE = 1 << 13;
+
+	/**
+	 * Private Constructor. This is a Utility class that should not be
+	 * instantiated.
+	 */
+	private Server() {
+	}
+
+	/**
+	 * Accepts clients on the given port of the local host until the process
+	 * is terminated. All clients operate on the same praktomat.
+	 * @param port port to listen on
+	 * @param praktomat praktomat to operate on
+	 * @throws IOException if the port cannot be opened
+	 */
+	public static void serve(int port, final Praktomat praktomat)
+			throws IOException {
+		ServerSocket server = new ServerSocket(port, BACKLOG,
+				InetAddress.getLoopbackAddress());
+		ExecutorService executor = newExecutor();
+		try {
+			while (true) {
+				final Socket socket = server.accept();
+				executor.execute(new Runnable() {
+					public void run() {
+						session(socket, praktomat);
+					}
+				});
+			}
+		} finally {
+			executor.shutdown();
+			server.close();
+		}
+	}
+
+	/**
+	 * Creates an executor which runs each task in a new virtual thread. If the
+	 * Java runtime has no virtual threads, a cached thread pool is used.
+	 * @return executor for the connections
+	 */
+	static ExecutorService newExecutor() {
+		try {
+			Method factory = Executors.class.getMethod(
+					"newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool();
+		}
+	}
+
+	/**
+	 * Handles the commands of one client until it quits or disconnects.
+	 * The output is only flushed when no further command is waiting, so
+	 * the replies to pipelined commands are sent together.
+	 * @param socket connection to the client
+	 * @param praktomat praktomat to operate on
+	 */
+	private static void session(Socket socket, Praktomat praktomat) {
+		try {
+			BufferedReader in = new BufferedReader(new InputStreamReader(
+					socket.getInputStream(), StandardCharsets.UTF_8), BUFFER_SIZE);
+			PrintStream out = new PrintStream(new BufferedOutputStream(
+					socket.getOutputStream(), BUFFER_SIZE), false, "UTF-8");
+			CommandParser command = new CommandParser();
+			Session session = new Session();
+			boolean quit = false;
+			out.print(Shell.PROMPT);
+			out.flush();
+			String line;
+			while (!quit && (line = in.readLine()) != null) {
+				command.parse(line);
+				try {
+					quit = Shell.execute(command, praktomat, out, session);
+				} catch (IllegalArgumentException e) {
+					// another client changed the praktomat after the checks
+					out.println(e.getMessage());
+				}
+				if (!quit) {
+					out.print(Shell.PROMPT);
+				}
+				if (quit || !in.ready()) {
+					out.flush();
+				}
+			}
+		} catch (IOException e) {
+			// the client is gone, there is nobody left to answer
+		} finally {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// the connection is closed anyway
+			}
+		}
+	}
+
+}
@@ -0,0 +1,29 @@
+/**
+ * This class represents the session of a client of the {@link Server}. All
+ * clients share one praktomat, so the tutor selected by the command tut is
+ * kept per session: the command stud adds the student to the tutor of its
+ * own session and not to the tutor another client selected last.
+ * @author Florian Mueller
+ */
+public class Session {
+
+	/** name of the tutor selected in this session, null if there is none */
+	private String tutorName;
+
+	/**
+	 * Returns the name of the tutor selected in this session.
+	 * @return name of the tutor, or {@code null} if no tutor is selected
+	 */
+	public String getTutorName() {
+		return this.tutorName;
+	}
+
+	/**
+	 * Selects the tutor of this session.
+	 * @param tutorName name of the tutor
+	 */
+	public void selectTutor(String tutorName) {
+		this.tutorName = tutorName;
+	}
+
+}
@@ -1,3 +1,26 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
 /**
  * This class implements a simple shell to test the functionalities of the Praktomat.
  * @author Florian Mueller
@@ -5,7 +28,7 @@
 public final class Shell {
 
 	/** the prompt of this shell */
-	private static final String PROMPT = "praktomat> ";
+	static final String PROMPT = "praktomat> ";
 
 	/** command to terminate the shell */
 	private static final String CMD_QUIT = "quit";
@@ -43,9 +66,129 @@ public final class Shell {
 	/** command prints information about the individual tutors */
 	private static final String CMD_SUMMARY_TUTOR = "summary-tutor";
 
+	/** command prints the grades of a tutor in a task */
+	private static final String CMD_SUMMARY_TUTOR_TASK = "summary-tutor-task";
+
+	/** command compares the average grades of the tutors with those of the tasks */
+	private static final String CMD_COMPARE_TUTORS = "compare-tutors";
+
+	/** command lists the students, tutors or solutions matching a condition */
+	private static final String CMD_QUERY = "query";
+
 	/** command prints information about the individual students */
 	private static final String CMD_SUMMARY_STUDENT = "summary-student";
 
+	/** command to write a snapshot of the Praktomat */
+	private static final String CMD_SNAPSHOT = "snapshot";
+
+	/** command to import students with their tutors from a CSV file */
+	private static final String CMD_IMPORT_STUDENTS = "import-students";
+
+	/** command to import solutions from a CSV file */
+	private static final String CMD_IMPORT_SUBMISSIONS = "import-submissions";
+
+	/** command to review the solutions of a CSV file all at once */
+	private static final String CMD_REVIEW_BATCH = "review-batch";
+
+	/** command to show the oldest solution a tutor has not reviewed yet */
+	private static final String CMD_NEXT_REVIEW = "next-review";
+
+	/** command to show the amount of solutions a tutor has not reviewed yet */
+	private static final String CMD_PENDING = "pending";
+
+	/** command to list the solutions of a student with their grades */
+	private static final String CMD_TRANSCRIPT = "transcript";
+
+	/** command to show the amounts and the latencies of the operations */
+	private static final String CMD_STATS = "stats";
+
+	/** parameter of summary-student to list the best students */
+	private static final String OPT_BEST = "best";
+
+	/** parameter of summary-student to list the worst students */
+	private static final String OPT_WORST = "worst";
+
+	/** parameter of summary-task and summary-tutor to add the median, quartiles and failing grades */
+	private static final String OPT_DETAIL = "detail";
+
+	/** parameter of query to list students */
+	private static final String OPT_STUDENTS = "students";
+
+	/** parameter of query to list tutors */
+	private static final String OPT_TUTORS = "tutors";
+
+	/** parameter of query to list solutions */
+	private static final String OPT_SOLUTIONS = "solutions";
+
+	/** parameter of query which starts the condition of students and tutors */
+	private static final String OPT_WHERE = "where";
+
+	/** field of the condition of query, the average grade */
+	private static final String OPT_AVG = "avg";
+
+	/** field of the condition of query, the missing reviews of a tutor */
+	private static final String OPT_MISSING = "missing";
+
+	/** key of the filter of query solutions for the task */
+	private static final String OPT_TASK = "task";
+
+	/** key of the filter of query solutions for the review state */
+	private static final String OPT_REVIEWED = "reviewed";
+
+	/** key of the filter of query solutions for the tutor */
+	private static final String OPT_TUTOR = "tutor";
+
+	/** name of all unknown commands in the metrics */
+	private static final String CMD_UNKNOWN = "unknown";
+
+	/** file name which selects the standard input in batch mode */
+	private static final String STDIN = "-";
+
+	/** option to keep the solution texts compressed outside the heap */
+	private static final String OPT_COMPRESS_SOLUTIONS = "-compress-solutions";
+
+	/** option to select the journal file */
+	private static final String OPT_JOURNAL = "-journal";
+
+	/** option to create the reports of the tasks with the given amount of threads */
+	private static final String OPT_PARALLEL = "-parallel";
+
+	/** option to start a server on the given port */
+	private static final String OPT_SERVER = "-server";
+
+	/** option to select the snapshot file */
+	private static final String OPT_SNAPSHOT = "-snapshot";
+
+	/** option to select the file the statistics are written to */
+	private static final String OPT_STATS = "-stats";
+
+	/** option to select the interval of writing the statistics */
+	private static final String OPT_STATS_INTERVAL = "-stats-interval";
+
+	/** option to select when the journal is forced to disk */
+	private static final String OPT_SYNC = "-sync";
+
+	/** sync policy value to force the journal after every record */
+	private static final String SYNC_ALWAYS = "always";
+
+	/** sync policy value to leave forcing the journal to the OS */
+	private static final String SYNC_OS = "os";
+
+	/** size of the output buffer in batch mode */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** default interval of writing the statistics in milliseconds */
+	private static final String STATS_INTERVAL = "10000";
+
+	/** latencies and errors of the commands */
+	private static final Metrics COMMAND_METRICS = new Metrics();
+
+	/** snapshot file of the Praktomat, null if there is none */
+	private static File snapshotFile;
+
+	/** pool which creates the reports of the tasks, null to create them in turn */
+	private static ForkJoinPool reportPool;
+
 	/**
 	 * Private Constructor. This is a Utility class that should not be
 	 * instantiated.
@@ -54,293 +197,1051 @@ public final class Shell {
 	}
 
 	/**
-	 * main method - realizes the shell
-	 * @param args command line arguments - not used here!
+	 * main method - realizes the shell. Without a file name the commands are
+	 * read interactively. With a file name, or {@code -} for the standard
+	 * input, the commands are read from it in batch mode without prompts and
+	 * the output is buffered until the end of the input.
+	 * <p>
+	 * With {@code -journal <file>} all changes are written to the journal
+	 * file, which is replayed on start. {@code -sync} selects when the journal
+	 * is forced to disk: {@code always} (default), {@code os}, or a number of
+	 * milliseconds between group commits. With {@code -snapshot <file>} the
+	 * Praktomat is read from the snapshot file on start, before the journal is
+	 * replayed, and the command snapshot writes it and clears the journal.
+	 * With {@code -server <port>} no commands are read, instead the shell is
+	 * offered to many clients on the given port of the local host, each with
+	 * its own selected tutor and without the commands reset and snapshot.
+	 * With {@code -stats <file>} the output of the command stats is written to
+	 * the file periodically and at the end, every 10 seconds or the amount of
+	 * milliseconds given by {@code -stats-interval}. With
+	 * {@code -parallel <threads>} the commands results and summary-task create
+	 * the reports of the tasks in parallel with the given amount of threads.
+	 * With {@code -compress-solutions} the submitted solution texts are kept
+	 * compressed outside the heap and decompressed when they are listed.
+	 * @param args command line arguments - options and optional file with
+	 *        commands
 	 */
 	public static void main(String[] args) {
-		boolean quit = false;
-		Praktomat praktomat = new Praktomat();
+		String fileName = null;
+		String journalName = null;
+		String sync = SYNC_ALWAYS;
+		String port = null;
+		String statsName = null;
+		String statsInterval = STATS_INTERVAL;
+		String parallel = null;
+		boolean compress = false;
+		for (int i = 0; i < args.length; i++) {
+			if (OPT_COMPRESS_SOLUTIONS.equals(args[i])) {
+				compress = true;
+			} else if (OPT_JOURNAL.equals(args[i]) && i + 1 < args.length) {
+				journalName = args[++i];
+			} else if (OPT_SNAPSHOT.equals(args[i]) && i + 1 < args.length) {
+				snapshotFile = new File(args[++i]);
+			} else if (OPT_SERVER.equals(args[i]) && i + 1 < args.length) {
+				port = args[++i];
+			} else if (OPT_SYNC.equals(args[i]) && i + 1 < args.length) {
+				sync = args[++i];
+			} else if (OPT_PARALLEL.equals(args[i]) && i + 1 < args.length) {
+				parallel = args[++i];
+			} else if (OPT_STATS.equals(args[i]) && i + 1 < args.length) {
+				statsName = args[++i];
+			} else if (OPT_STATS_INTERVAL.equals(args[i]) && i + 1 < args.length) {
+				statsInterval = args[++i];
+			} else if (fileName == null && port == null) {
+				fileName = args[i];
+			} else {
+				error(System.out, "Wrong number of parameters.");
+				return;
+			}
+		}
 
+		if (port != null && (fileName != null || !port.matches("[0-9]{1,5}"))) {
+			error(System.out, "Port must be a number between 0 and 65535.");
+			return;
+		} else if (!statsInterval.matches("[0-9]{1,9}")
+				|| Integer.parseInt(statsInterval) == 0) {
+			error(System.out, "Statistics interval must be a number > 0.");
+			return;
+		} else if (parallel != null && (!parallel.matches("[0-9]{1,4}")
+				|| Integer.parseInt(parallel) == 0)) {
+			error(System.out, "Amount of threads must be a number > 0.");
+			return;
+		}
+		if (parallel != null) {
+			reportPool = new ForkJoinPool(Integer.parseInt(parallel));
+		}
+
+		Journal journal = null;
+		Praktomat praktomat = null;
+		ScheduledExecutorService statsWriter = null;
+		try {
+			if (snapshotFile != null && snapshotFile.exists()) {
+				praktomat = Snapshot.read(snapshotFile, compress);
+			} else {
+				praktomat = new Praktomat(compress);
+			}
+			if (journalName != null) {
+				journal = openJournal(journalName, sync);
+				praktomat.setJournal(journal);
+			}
+			if (statsName != null) {
+				statsWriter = startStats(new File(statsName), praktomat,
+						Integer.parseInt(statsInterval));
+			}
+			if (port != null) {
+				Server.serve(Integer.parseInt(port), praktomat);
+			} else if (fileName == null) {
+				interactive(praktomat);
+			} else {
+				batch(fileName, praktomat);
+			}
+		} catch (IllegalArgumentException e) {
+			println(System.out, e.getMessage());
+		} catch (IOException e) {
+			error(System.out, "Cannot start the Praktomat: " + e.getMessage());
+		} finally {
+			if (statsWriter != null) {
+				statsWriter.shutdownNow();
+				writeStats(new File(statsName), praktomat);
+			}
+			if (journal != null) {
+				try {
+					journal.close();
+				} catch (IOException e) {
+					error(System.out, "Cannot close journal: " + e.getMessage());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Opens the journal with the given sync policy.
+	 * @param fileName name of the journal file
+	 * @param sync {@code always}, {@code os} or milliseconds between group commits
+	 * @return opened journal
+	 * @throws IOException if the journal cannot be opened
+	 */
+	private static Journal openJournal(String fileName, String sync)
+			throws IOException {
+		File file = new File(fileName);
+		if (SYNC_ALWAYS.equals(sync)) {
+			return new Journal(file, Journal.SyncPolicy.ALWAYS, 0);
+		} else if (SYNC_OS.equals(sync)) {
+			return new Journal(file, Journal.SyncPolicy.OS, 0);
+		} else if (sync.matches("[0-9]{1,9}")) {
+			return new Journal(file, Journal.SyncPolicy.GROUP,
+					Integer.parseInt(sync));
+		}
+		throw new IllegalArgumentException(
+				"Error! Sync policy must be always, os or a number > 0.");
+	}
+
+	/**
+	 * Starts writing the statistics of the given praktomat to the given file
+	 * periodically.
+	 * @param file file the statistics are written to
+	 * @param praktomat praktomat to observe
+	 * @param intervalMillis interval of writing in milliseconds
+	 * @return executor which writes the statistics
+	 */
+	private static ScheduledExecutorService startStats(final File file,
+			final Praktomat praktomat, long intervalMillis) {
+		ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+				new ThreadFactory() {
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "stats-writer");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		executor.scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				writeStats(file, praktomat);
+			}
+		}, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+		return executor;
+	}
+
+	/**
+	 * Writes the statistics of the given praktomat to the given file. They
+	 * are written to a temporary file first which then replaces the given
+	 * file, so the file is never read half written.
+	 * @param file file the statistics are written to
+	 * @param praktomat praktomat to observe
+	 */
+	private static synchronized void writeStats(File file, Praktomat praktomat) {
+		File tmp = new File(file.getPath() + ".tmp");
+		try {
+			PrintStream out = new PrintStream(tmp, "UTF-8");
+			try {
+				println(out, "# " + Instant.now());
+				println(out, stats(praktomat));
+			} finally {
+				out.close();
+			}
+			Files.move(tmp.toPath(), file.toPath(),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			error(System.err, "Cannot write statistics: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Statistics of the given praktomat and of the commands of this shell.
+	 * @param praktomat praktomat to observe
+	 * @return statistics of the praktomat followed by those of the commands
+	 */
+	private static List<String> stats(Praktomat praktomat) {
+		List<String> stats = praktomat.stats();
+		stats.addAll(COMMAND_METRICS.report("command "));
+		return stats;
+	}
+
+	/**
+	 * Reads the commands interactively until the command quit.
+	 * @param praktomat praktomat to operate on
+	 */
+	private static void interactive(Praktomat praktomat) {
+		CommandParser command = new CommandParser();
+		boolean quit = false;
 		while (!quit) {
-			final String tokens[] = Terminal.askString(PROMPT).trim()
-					.split("\\s+");
-			final String cmd = tokens[0].toLowerCase();
+			command.parse(Terminal.askString(PROMPT));
+			quit = execute(command, praktomat, System.out);
+		}
+	}
 
-			if (CMD_TUT.equals(cmd)) {
-				addTutor(tokens, praktomat);
+	/**
+	 * Runs all commands of the given file without prompts. The input ends
+	 * with the command quit or at the end of the file.
+	 * @param fileName name of the file with commands, or {@code -}
+	 * @param praktomat praktomat to operate on
+	 */
+	private static void batch(String fileName, Praktomat praktomat) {
+		PrintStream out = new PrintStream(new BufferedOutputStream(
+				new FileOutputStream(FileDescriptor.out), BUFFER_SIZE), false);
+		try {
+			BufferedReader in = new BufferedReader(new InputStreamReader(
+					STDIN.equals(fileName) ? System.in
+							: new FileInputStream(fileName)), BUFFER_SIZE);
+			try {
+				CommandParser command = new CommandParser();
+				boolean quit = false;
+				String line;
+				while (!quit && (line = in.readLine()) != null) {
+					command.parse(line);
+					quit = execute(command, praktomat, out);
+				}
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			error(out, "Cannot read file: " + e.getMessage());
+		} finally {
+			out.flush();
+		}
+	}
 
-			} else if (CMD_STUD.equals(cmd)) {
-				addStudent(tokens, praktomat);
+	/**
+	 * Performs the given command line on the given praktomat. The latency of
+	 * the command is recorded, and whether it failed.
+	 * @param command parsed command line with command and parameters
+	 * @param praktomat praktomat to operate on
+	 * @param out output of the command
+	 * @return {@code true} if the shell is to quit, {@code false} otherwise
+	 */
+	static boolean execute(CommandParser command, Praktomat praktomat,
+			PrintStream out) {
+		return execute(command, praktomat, out, null);
+	}
 
-			} else if (CMD_TASK.equals(cmd)) {
-				addTask(tokens, praktomat);
+	/**
+	 * Performs the given command line of a client of the server on the given
+	 * praktomat. The commands tut and stud use the tutor of the session, the
+	 * commands reset and snapshot are refused, because the praktomat is shared
+	 * with the other clients.
+	 * @param command parsed command line with command and parameters
+	 * @param praktomat praktomat to operate on
+	 * @param out output of the command
+	 * @param session session of the client, null if the praktomat is not shared
+	 * @return {@code true} if the shell is to quit, {@code false} otherwise
+	 */
+	static boolean execute(CommandParser command, Praktomat praktomat,
+			PrintStream out, Session session) {
+		long start = System.nanoTime();
+		String name = CMD_UNKNOWN;
+		boolean ok = false;
+		boolean quit = false;
+		try {
+			if (command.isCommand(CMD_TUT)) {
+				name = CMD_TUT;
+				ok = addTutor(command, praktomat, out, session);
 
-			} else if (CMD_SUBMIT.equals(cmd)) {
-				submit(tokens, praktomat);
+			} else if (command.isCommand(CMD_STUD)) {
+				name = CMD_STUD;
+				ok = addStudent(command, praktomat, out, session);
 
-			} else if (CMD_REVIEW.equals(cmd)) {
-				review(tokens, praktomat);
+			} else if (command.isCommand(CMD_TASK)) {
+				name = CMD_TASK;
+				ok = addTask(command, praktomat, out);
 
-			} else if (CMD_LIST_SOLUTIONS.equals(cmd)) {
-				listSolutions(tokens, praktomat);
+			} else if (command.isCommand(CMD_SUBMIT)) {
+				name = CMD_SUBMIT;
+				ok = submit(command, praktomat, out);
 
-			} else if (CMD_SUMMARY_TUTOR.equals(cmd)) {
-				if (tokens.length == 1) {
-					for (String s : praktomat.summaryTutor()) {
-						println(s);
-					}
+			} else if (command.isCommand(CMD_REVIEW)) {
+				name = CMD_REVIEW;
+				ok = review(command, praktomat, out);
+
+			} else if (command.isCommand(CMD_NEXT_REVIEW)) {
+				name = CMD_NEXT_REVIEW;
+				ok = pendingReviews(command, praktomat, out, true);
+
+			} else if (command.isCommand(CMD_PENDING)) {
+				name = CMD_PENDING;
+				ok = pendingReviews(command, praktomat, out, false);
+
+			} else if (command.isCommand(CMD_LIST_SOLUTIONS)) {
+				name = CMD_LIST_SOLUTIONS;
+				ok = listSolutions(command, praktomat, out);
+
+			} else if (command.isCommand(CMD_TRANSCRIPT)) {
+				name = CMD_TRANSCRIPT;
+				ok = transcript(command, praktomat, out);
+
+			} else if (command.isCommand(CMD_SUMMARY_TUTOR)) {
+				name = CMD_SUMMARY_TUTOR;
+				if (command.count() == 1 || isDetail(command)) {
+					Writer report = report(out);
+					praktomat.summaryTutor(report, command.count() == 2);
+					report.flush();
+					ok = true;
 				} else {
-					error("Wrong number of parameters.");
+					error(out, "Wrong number of parameters.");
 				}
 
-			} else if (CMD_SUMMARY_STUDENT.equals(cmd)) {
-				if (tokens.length == 1) {
-					for (String s : praktomat.summaryStudent()) {
-						println(s);
-					}
+			} else if (command.isCommand(CMD_SUMMARY_TUTOR_TASK)) {
+				name = CMD_SUMMARY_TUTOR_TASK;
+				ok = summaryTutorTask(command, praktomat, out);
+
+			} else if (command.isCommand(CMD_COMPARE_TUTORS)) {
+				name = CMD_COMPARE_TUTORS;
+				if (command.count() == 1) {
+					Writer report = report(out);
+					praktomat.compareTutors(report);
+					report.flush();
+					ok = true;
 				} else {
-					error("Wrong number of parameters.");
+					error(out, "Wrong number of parameters.");
 				}
 
-			} else if (CMD_SUMMARY_TASK.equals(cmd)) {
-				if (tokens.length == 1) {
-					for (String s : praktomat.summaryTask()) {
-						println(s);
+			} else if (command.isCommand(CMD_QUERY)) {
+				name = CMD_QUERY;
+				ok = query(command, praktomat, out);
+
+			} else if (command.isCommand(CMD_SUMMARY_STUDENT)) {
+				name = CMD_SUMMARY_STUDENT;
+				ok = summaryStudent(command, praktomat, out);
+
+			} else if (command.isCommand(CMD_SUMMARY_TASK)) {
+				name = CMD_SUMMARY_TASK;
+				if (command.count() == 1 || isDetail(command)) {
+					Writer report = report(out);
+					if (reportPool != null) {
+						praktomat.summaryTask(report, reportPool, command.count() == 2);
+					} else {
+						praktomat.summaryTask(report, command.count() == 2);
 					}
+					report.flush();
+					ok = true;
 				} else {
-					error("Wrong number of parameters.");
+					error(out, "Wrong number of parameters.");
 				}
 
-			} else if (CMD_RESULTS.equals(cmd)) {
-				if (tokens.length == 1) {
-					for (String s : praktomat.results()) {
-						println(s);
+			} else if (command.isCommand(CMD_RESULTS)) {
+				name = CMD_RESULTS;
+				if (command.count() == 1) {
+					Writer report = report(out);
+					if (reportPool != null) {
+						praktomat.results(report, reportPool);
+					} else {
+						praktomat.results(report);
 					}
+					report.flush();
+					ok = true;
 				} else {
-					error("Wrong number of parameters.");
+					error(out, "Wrong number of parameters.");
 				}
 
-			} else if (CMD_LIST_STUDENTS.equals(cmd)) {
-				if (tokens.length == 1) {
-					for (String s : praktomat.listStudents()) {
-						println(s);
-					}
+			} else if (command.isCommand(CMD_LIST_STUDENTS)) {
+				name = CMD_LIST_STUDENTS;
+				if (command.count() == 1) {
+					Writer report = report(out);
+					praktomat.listStudents(report);
+					report.flush();
+					ok = true;
 				} else {
-					error("Wrong number of parameters.");
+					error(out, "Wrong number of parameters.");
 				}
 
-			} else if (CMD_RESET.equals(cmd)) {
-				if (tokens.length == 1) {
-					praktomat = new Praktomat();
+			} else if (command.isCommand(CMD_IMPORT_STUDENTS)) {
+				name = CMD_IMPORT_STUDENTS;
+				ok = importCsv(command, praktomat, out, name);
+
+			} else if (command.isCommand(CMD_IMPORT_SUBMISSIONS)) {
+				name = CMD_IMPORT_SUBMISSIONS;
+				ok = importCsv(command, praktomat, out, name);
+
+			} else if (command.isCommand(CMD_REVIEW_BATCH)) {
+				name = CMD_REVIEW_BATCH;
+				ok = importCsv(command, praktomat, out, name);
+
+			} else if (command.isCommand(CMD_STATS)) {
+				name = CMD_STATS;
+				if (command.count() == 1) {
+					ok = println(out, stats(praktomat));
 				} else {
-					error("Wrong number of parameters.");
+					error(out, "Wrong number of parameters.");
 				}
 
-			} else if (CMD_QUIT.equals(cmd)) {
-				if (tokens.length == 1) {
-					quit = true;
+			} else if (command.isCommand(CMD_SNAPSHOT)) {
+				name = CMD_SNAPSHOT;
+				if (session != null) {
+					error(out, "Snapshot is not allowed in server mode.");
+				} else if (command.count() == 1) {
+					ok = writeSnapshot(praktomat, out);
 				} else {
-					error("Wrong number of parameters.");
+					error(out, "Wrong number of parameters.");
+				}
+
+			} else if (command.isCommand(CMD_RESET)) {
+				name = CMD_RESET;
+				if (session != null) {
+					error(out, "Reset is not allowed in server mode.");
+				} else if (command.count() == 1) {
+					ok = reset(praktomat, out);
+				} else {
+					error(out, "Wrong number of parameters.");
+				}
+
+			} else if (command.isCommand(CMD_QUIT)) {
+				name = CMD_QUIT;
+				if (command.count() == 1) {
+					ok = quit = true;
+				} else {
+					error(out, "Wrong number of parameters.");
 				}
 
 			} else {
-				error("Unknown command: '" + cmd + "'");
+				error(out, "Unknown command: '" + command.command() + "'");
+			}
+		} catch (IOException e) {
+			error(out, "Cannot write output: " + e.getMessage());
+		} finally {
+			LatencyHistogram histogram = COMMAND_METRICS.histogram(name);
+			if (!ok) {
+				histogram.recordError();
 			}
+			histogram.recordSince(start);
 		}
+		return quit;
 	}
 
 	/**
 	 * Performs the given command on the given praktomat
-	 * @param tokens command and parameters
+	 * @param command command and parameters
 	 * @param praktomat praktomat to operate on
+	 * @param out output of the command
+	 * @param session session which selects the tutor, null if there is none
+	 * @return {@code true} if the command succeeded, {@code false} otherwise
 	 */
-	private static void addTutor(String[] tokens, Praktomat praktomat) {
-		if (tokens.length == 2) {
-			final String tutorName = tokens[1];
-			if (tutorName.matches("[a-z]+")) {
-				praktomat.addTutor(tutorName);
+	private static boolean addTutor(CommandParser command, Praktomat praktomat,
+			PrintStream out, Session session) {
+		if (command.count() == 2) {
+			if (command.isName(1)) {
+				praktomat.addTutor(command.token(1));
+				if (session != null) {
+					session.selectTutor(command.token(1));
+				}
 			} else {
-				error("Name consist of unauthorized signs.");
+				return error(out, "Name consist of unauthorized signs.");
 			}
 		} else {
-			error("Wrong number of parameters.");
+			return error(out, "Wrong number of parameters.");
 		}
+		return true;
 	}
 
 	/**
 	 * Performs the given command on the given praktomat
-	 * @param tokens command and parameters
+	 * @param command command and parameters
 	 * @param praktomat praktomat to operate on
+	 * @param out output of the command
+	 * @param session session which selects the tutor, null if there is none
+	 * @return {@code true} if the command succeeded, {@code false} otherwise
 	 */
-	private static void addStudent(String[] tokens, Praktomat praktomat) {
-		if (tokens.length == 3) {
-			if (praktomat.existTutor()) {
-				final String studentName = tokens[1];
-				final String mNumber = tokens[2];
-				if (mNumber.matches("[0-9]{5}")) {
-					final int matNumber = Integer.parseInt(mNumber);
-					if (studentName.matches("[a-z]+")) {
+	private static boolean addStudent(CommandParser command, Praktomat praktomat,
+			PrintStream out, Session session) {
+		if (command.count() == 3) {
+			if (session == null ? praktomat.existTutor()
+					: session.getTutorName() != null) {
+				if (command.isMatNumber(2)) {
+					final int matNumber = command.parseInt(2);
+					if (command.isName(1)) {
 						if (!praktomat.containsStudent(matNumber)) {
-							praktomat.addStudent(matNumber, studentName);
+							if (session == null) {
+								praktomat.addStudent(matNumber, command.token(1));
+							} else {
+								praktomat.addStudent(session.getTutorName(), matNumber,
+										command.token(1));
+							}
 						} else {
-							error("Student already exists.");
+							return error(out, "Student already exists.");
 						}
 					} else {
-						error("Name consist of unauthorized signs.");
+						return error(out, "Name consist of unauthorized signs.");
 					}
 				} else {
-					error("Matriculation number must be a five digit positiv number.");
+					return error(out, "Matriculation number must be a five digit positiv number.");
 				}
 			} else {
-				error("No tutor created.");
+				return error(out, "No tutor created.");
 			}
 		} else {
-			error("Wrong number of parameters.");
+			return error(out, "Wrong number of parameters.");
 		}
+		return true;
 	}
 
 	/**
 	 * Performs the given command on the given praktomat.
-	 * @param tokens command and parameters
+	 * @param command command and parameters
 	 * @param praktomat praktomat to operate on
+	 * @param out output of the command
+	 * @return {@code true} if the command succeeded, {@code false} otherwise
 	 */
-	private static void addTask(String[] tokens, Praktomat praktomat) {
-		if (tokens.length == 2) {
-			final String taskName = tokens[1];
+	private static boolean addTask(CommandParser command, Praktomat praktomat,
+			PrintStream out) {
+		if (command.count() == 2) {
+			final String taskName = command.token(1);
 			if (taskName != null) {
-				println(praktomat.addTask(taskName));
+				println(out, praktomat.addTask(taskName));
 			} else {
-				error("No task name is given.");
+				return error(out, "No task name is given.");
 			}
 
 		} else {
-			error("Wrong number of parameters.");
+			return error(out, "Wrong number of parameters.");
 		}
+		return true;
 	}
 
 	/**
 	 * Performs the given command on the given praktomat.
-	 * @param tokens command and parameters
+	 * @param command command and parameters
 	 * @param praktomat praktomat to operate on
+	 * @param out output of the command
+	 * @return {@code true} if the command succeeded, {@code false} otherwise
 	 */
-	private static void submit(String[] tokens, Praktomat praktomat) {
-		if (tokens.length == 4) {
-			if (tokens[1].matches("[1-9]+")) {
-				if (tokens[2].matches("[0-9]{5}")) {
-					final int taskId = Integer.parseInt(tokens[1]);
-					final int matNumber = Integer.parseInt(tokens[2]);
-					final String solutionText = tokens[3];
+	private static boolean submit(CommandParser command, Praktomat praktomat,
+			PrintStream out) {
+		if (command.count() == 4) {
+			if (command.isDigits(1, '1', '9', 1, Integer.MAX_VALUE)) {
+				if (command.isMatNumber(2)) {
+					final int taskId = command.parseInt(1);
+					final int matNumber = command.parseInt(2);
+					final String solutionText = command.token(3);
 					if (praktomat.containsTask(taskId)) {
 						if (praktomat.containsStudent(matNumber)) {
 							if (solutionText != null) {
 								if (!praktomat.containsSolution(taskId, matNumber)) {
 									praktomat.submit(taskId, matNumber, solutionText);
 								} else {
-									error("A solution is already given.");
+									return error(out, "A solution is already given.");
 								}
 							} else {
-								error("No solution is given.");
+								return error(out, "No solution is given.");
 							}
 						} else {
-							error("Student does not exist.");
+							return error(out, "Student does not exist.");
 						}
 					} else {
-						error("Task does not exist.");
+						return error(out, "Task does not exist.");
 					}
 				} else {
-					error("Matriculation number must be a five digit positive Number.");
+					return error(out, "Matriculation number must be a five digit positive Number.");
 				}
 			} else {
-				error("Task number must be a number > 0.");
+				return error(out, "Task number must be a number > 0.");
 			}
 		} else {
-			error("Wrong number of parameters.");
+			return error(out, "Wrong number of parameters.");
 		}
+		return true;
 	}
 
 	/**
 	 * Performs the given command on the given praktomat
-	 * @param tokens command and parameters
+	 * @param command command and parameters
 	 * @param praktomat praktomat to operate on
+	 * @param out output of the command
+	 * @return {@code true} if the command succeeded, {@code false} otherwise
 	 */
-	private static void review(String[] tokens, Praktomat praktomat) {
-		if (tokens.length == 5) {
-			if (tokens[1].matches("[0-9]*[1-9]{1}")) {
-				if (tokens[2].matches("[0-9]{5}")) {
-					if (tokens[3].matches("[1-5]{1}")) {
-						final int taskId = Integer.parseInt(tokens[1]);
-						final int matNumber = Integer.parseInt(tokens[2]);
-						final int grade = Integer.parseInt(tokens[3]);
-						final String comment = tokens[4];
+	private static boolean review(CommandParser command, Praktomat praktomat,
+			PrintStream out) {
+		if (command.count() == 5) {
+			if (command.isTaskNumber(1)) {
+				if (command.isMatNumber(2)) {
+					if (command.isDigits(3, '1', '5', 1, 1)) {
+						final int taskId = command.parseInt(1);
+						final int matNumber = command.parseInt(2);
+						final int grade = command.parseInt(3);
+						final String comment = command.token(4);
 						if (comment != null) {
 							if (praktomat.containsTask(taskId)) {
 								if (praktomat.containsStudent(matNumber)) {
 									if (praktomat.containsSolution(taskId, matNumber)) {
-										println(praktomat.review(taskId, matNumber, grade, comment));			
+										println(out, praktomat.review(taskId, matNumber, grade, comment));			
 									} else {
-										error("Solution does not exist.");
+										return error(out, "Solution does not exist.");
 									}
 								} else {
-									error("Student does not exist.");
+									return error(out, "Student does not exist.");
 								}
 							} else {
-								error("Task does not exist.");
+								return error(out, "Task does not exist.");
 							}
 						} else {
-							error("No comment is given.");
+							return error(out, "No comment is given.");
 						}
 					} else {
-						error("Grade must be a one digit number between 1 and 5.");
+						return error(out, "Grade must be a one digit number between 1 and 5.");
 					}
 				} else {
-					error("Matriculation number must be a five digit positive Number.");
+					return error(out, "Matriculation number must be a five digit positive Number.");
 				}
 			} else {
-				error("Task number must be a number > 0.");
+				return error(out, "Task number must be a number > 0.");
 			}
 		} else {
-			error("Wrong number of parameters.");
+			return error(out, "Wrong number of parameters.");
 		}
+		return true;
 	}
 
 	/**
 	 * Performs the given command on the given praktomat
-	 * @param tokens command and parameters
+	 * @param command command and parameters
 	 * @param praktomat praktomat to operate on
+	 * @param out output of the command
+	 * @return {@code true} if the command succeeded, {@code false} otherwise
+	 * @throws IOException if the output cannot be written
 	 */
-	private static void listSolutions(String[] tokens, Praktomat praktomat) {
-		if (tokens.length == 2) {
-			if (tokens[1].matches("[0-9]*[1-9]{1}")) {
-				final int taskId = Integer.parseInt(tokens[1]);
+	private static boolean listSolutions(CommandParser command, Praktomat praktomat,
+			PrintStream out) throws IOException {
+		if (command.count() == 2) {
+			if (command.isTaskNumber(1)) {
+				final int taskId = command.parseInt(1);
 				if (praktomat.containsTask(taskId)) {
-					for (String s : praktomat.listSolutions(taskId)) {
-						println(s);
-					}
+					Writer report = report(out);
+					praktomat.listSolutions(taskId, report);
+					report.flush();
+				} else {
+					return error(out, "Task does not exist.");
+				}
+			} else {
+				return error(out, "Task number must be a number > 0.");
+			}
+		} else {
+			return error(out, "Wrong number of parameters.");
+		}
+		return true;
+	}
+
+	/**
+	 * Performs the given command on the given praktomat
+	 * @param command command and parameters
+	 * @param praktomat praktomat to operate on
+	 * @param out output of the command
+	 * @return {@code true} if the command succeeded, {@code false} otherwise
+	 * @throws IOException if the output cannot be written
+	 */
+	private static boolean transcript(CommandParser command, Praktomat praktomat,
+			PrintStream out) throws IOException {
+		if (command.count() == 2) {
+			if (command.isMatNumber(1)) {
+				final int matNumber = command.parseInt(1);
+				if (praktomat.containsStudent(matNumber)) {
+					Writer report = report(out);
+					praktomat.transcript(matNumber, report);
+					report.flush();
+				} else {
+					return error(out, "Student does not exist.");
+				}
+			} else {
+				return error(out, "Matriculation number must be a five digit positive Number.");
+			}
+		} else {
+			return error(out, "Wrong number of parameters.");
+		}
+		return true;
+	}
+
+	/**
+	 * Performs the given command on the given praktomat
+	 * @param command command and parameters
+	 * @param praktomat praktomat to operate on
+	 * @param out output of the command
+	 * @return {@code true} if the command succeeded, {@code false} otherwise
+	 * @throws IOException if the output cannot be written
+	 */
+	private static boolean summaryTutorTask(CommandParser command,
+			Praktomat praktomat, PrintStream out) throws IOException {
+		if (command.count() == 3) {
+			final String tutorName = command.token(1);
+			if (!praktomat.containsTutor(tutorName)) {
+				return error(out, "Tutor does not exist.");
+			} else if (command.isTaskNumber(2)) {
+				final int taskId = command.parseInt(2);
+				if (praktomat.containsTask(taskId)) {
+					Writer report = report(out);
+					praktomat.summaryTutorTask(tutorName, taskId, report);
+					report.flush();
+				} else {
+					return error(out, "Task does not exist.");
+				}
+			} else {
+				return error(out, "Task number must be a number > 0.");
+			}
+		} else {
+			return error(out, "Wrong number of parameters.");
+		}
+		return true;
+	}
+
+	/**
+	 * Performs the given command on the given praktomat. Students and tutors
+	 * are selected by a condition like {@code where avg > 4.0}, solutions by
+	 * the filters {@code task=<id>}, {@code reviewed=<true|false>} and
+	 * {@code tutor=<name>}, the task first.
+	 * @param command command and parameters
+	 * @param praktomat praktomat to operate on
+	 * @param out output of the command
+	 * @return {@code true} if the command succeeded, {@code false} otherwise
+	 * @throws IOException if the output cannot be written
+	 */
+	private static boolean query(CommandParser command, Praktomat praktomat,
+			PrintStream out) throws IOException {
+		if (command.count() < 2) {
+			return error(out, "Wrong number of parameters.");
+		}
+		final String what = command.token(1);
+		if (OPT_STUDENTS.equals(what) || OPT_TUTORS.equals(what)) {
+			final boolean students = OPT_STUDENTS.equals(what);
+			if (command.count() != 6 || !OPT_WHERE.equals(command.token(2))) {
+				return error(out, "Condition must be like 'where avg > 4.0'.");
+			} else if (!OPT_AVG.equals(command.token(3))
+					&& (students || !OPT_MISSING.equals(command.token(3)))) {
+				return error(out, students ? "Field must be avg."
+						: "Field must be avg or missing.");
+			} else if (!command.isComparison(4)) {
+				return error(out, "Comparison must be <, <=, > or >=.");
+			} else if (!command.isDecimal(5)) {
+				return error(out, "Value must be a decimal number.");
+			}
+			Writer report = report(out);
+			if (students) {
+				praktomat.queryStudents(command.token(4), command.parseDecimal(5), report);
+			} else {
+				praktomat.queryTutors(OPT_MISSING.equals(command.token(3)),
+						command.token(4), command.parseDecimal(5), report);
+			}
+			report.flush();
+		} else if (OPT_SOLUTIONS.equals(what)) {
+			if (command.count() < 3 || command.count() > 5) {
+				return error(out, "Wrong number of parameters.");
+			}
+			String task = command.value(2, OPT_TASK);
+			if (task == null) {
+				return error(out, "Task must be given like task=7.");
+			} else if (!CommandParser.isTaskNumber(task)) {
+				return error(out, "Task number must be a number > 0.");
+			}
+			final int taskId = CommandParser.parseInt(task);
+			String tutorName = null;
+			Boolean reviewed = null;
+			for (int i = 3; i < command.count(); i++) {
+				String state = command.value(i, OPT_REVIEWED);
+				String tutor = command.value(i, OPT_TUTOR);
+				if (reviewed == null && "true".equals(state)) {
+					reviewed = Boolean.TRUE;
+				} else if (reviewed == null && "false".equals(state)) {
+					reviewed = Boolean.FALSE;
+				} else if (tutorName == null && tutor != null) {
+					tutorName = tutor;
+				} else {
+					return error(out, "Filter must be reviewed=true, reviewed=false or tutor=<name>.");
+				}
+			}
+			if (!praktomat.containsTask(taskId)) {
+				return error(out, "Task does not exist.");
+			} else if (tutorName != null && !praktomat.containsTutor(tutorName)) {
+				return error(out, "Tutor does not exist.");
+			}
+			Writer report = report(out);
+			praktomat.querySolutions(taskId, tutorName, reviewed, report);
+			report.flush();
+		} else {
+			return error(out, "Query must be students, tutors or solutions.");
+		}
+		return true;
+	}
+
+	/**
+	 * Checks whether the command has the single parameter detail.
+	 * @param command command and parameters
+	 * @return {@code true} if the details are asked for, {@code false} otherwise
+	 */
+	private static boolean isDetail(CommandParser command) {
+		return command.count() == 2 && OPT_DETAIL.equals(command.token(1));
+	}
+
+	/**
+	 * Performs the given command on the given praktomat, either the oldest
+	 * solution the tutor has not reviewed yet or the amount of such solutions.
+	 * @param command command and parameters
+	 * @param praktomat praktomat to operate on
+	 * @param out output of the command
+	 * @param next {@code true} for next-review, {@code false} for pending
+	 * @return {@code true} if the command succeeded, {@code false} otherwise
+	 */
+	private static boolean pendingReviews(CommandParser command,
+			Praktomat praktomat, PrintStream out, boolean next) {
+		if (command.count() == 2) {
+			final String tutorName = command.token(1);
+			if (praktomat.containsTutor(tutorName)) {
+				if (next) {
+					PendingReview pendingReview = praktomat.nextReview(tutorName);
+					println(out, pendingReview != null ? pendingReview.toString()
+							: "no pending review");
+				} else {
+					println(out, praktomat.pendingReviews(tutorName)
+							+ " pending review(s)");
+				}
+			} else {
+				return error(out, "Tutor does not exist.");
+			}
+		} else {
+			return error(out, "Wrong number of parameters.");
+		}
+		return true;
+	}
+
+	/**
+	 * Performs the given command on the given praktomat. Without parameters
+	 * all students are listed, with {@code best <k>} or {@code worst <k>} only
+	 * the k best or worst graded students.
+	 * @param command command and parameters
+	 * @param praktomat praktomat to operate on
+	 * @param out output of the command
+	 * @return {@code true} if the command succeeded, {@code false} otherwise
+	 * @throws IOException if the output cannot be written
+	 */
+	private static boolean summaryStudent(CommandParser command,
+			Praktomat praktomat, PrintStream out) throws IOException {
+		Writer report = report(out);
+		if (command.count() == 1) {
+			praktomat.summaryStudent(report);
+		} else if (command.count() == 3) {
+			if (command.isDigits(2, '0', '9', 1, 9) && command.parseInt(2) > 0) {
+				final int k = command.parseInt(2);
+				if (OPT_BEST.equals(command.token(1))) {
+					praktomat.bestStudents(k, report);
+				} else if (OPT_WORST.equals(command.token(1))) {
+					praktomat.worstStudents(k, report);
 				} else {
-					error("Task does not exist.");
+					return error(out, "Ranking must be best or worst.");
 				}
 			} else {
-				error("Task number must be a number > 0.");
+				return error(out, "Amount of students must be a number > 0.");
 			}
 		} else {
-			error("Wrong number of parameters.");
+			return error(out, "Wrong number of parameters.");
 		}
+		report.flush();
+		return true;
+	}
+
+	/**
+	 * Performs the given command on the given praktomat. Every row which
+	 * cannot be imported is reported, then the amount of imported rows.
+	 * @param command command and parameters
+	 * @param praktomat praktomat to operate on
+	 * @param out output of the command
+	 * @param name name of the command, import-students, import-submissions or
+	 *        review-batch
+	 * @return {@code true} if the file is read and, for review-batch, the
+	 *         reviews are applied, {@code false} otherwise
+	 * @throws IOException if the output cannot be written
+	 */
+	private static boolean importCsv(CommandParser command, Praktomat praktomat,
+			PrintStream out, String name) throws IOException {
+		if (command.count() != 2) {
+			return error(out, "Wrong number of parameters.");
+		}
+		Writer report = report(out);
+		int imported;
+		try {
+			Reader in = new InputStreamReader(new FileInputStream(command.token(1)),
+					StandardCharsets.UTF_8);
+			try {
+				if (CMD_IMPORT_STUDENTS.equals(name)) {
+					imported = CsvImport.importStudents(in, praktomat, report);
+				} else if (CMD_IMPORT_SUBMISSIONS.equals(name)) {
+					imported = CsvImport.importSubmissions(in, praktomat, report);
+				} else {
+					imported = CsvImport.importReviews(in, praktomat, report);
+				}
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			report.flush();
+			return error(out, "Cannot read file: " + e.getMessage());
+		}
+		report.flush();
+		if (imported < 0) {
+			return error(out, "No solution is reviewed.");
+		} else if (CMD_REVIEW_BATCH.equals(name)) {
+			println(out, imported + " solution(s) reviewed");
+		} else {
+			println(out, imported + (CMD_IMPORT_STUDENTS.equals(name)
+					? " student(s)" : " solution(s)") + " imported");
+		}
+		return true;
+	}
+
+	/**
+	 * Resets the given praktomat. The snapshot file, if there is one, is
+	 * replaced by an empty snapshot, so the removed state is not read again
+	 * on the next start.
+	 * @param praktomat praktomat to reset
+	 * @param out output of the command
+	 * @return {@code true} if the praktomat is reset, {@code false} otherwise
+	 */
+	private static boolean reset(Praktomat praktomat, PrintStream out) {
+		if (snapshotFile != null) {
+			try {
+				praktomat.reset(snapshotFile);
+			} catch (IOException e) {
+				return error(out, "Cannot write snapshot: " + e.getMessage());
+			}
+		} else {
+			praktomat.reset();
+		}
+		return true;
+	}
+
+	/**
+	 * Writes a snapshot of the given praktomat to the snapshot file.
+	 * @param praktomat praktomat to write
+	 * @param out output of the command
+	 * @return {@code true} if the snapshot is written, {@code false} otherwise
+	 */
+	private static boolean writeSnapshot(Praktomat praktomat, PrintStream out) {
+		if (snapshotFile != null) {
+			try {
+				praktomat.writeSnapshot(snapshotFile);
+			} catch (IOException e) {
+				return error(out, "Cannot write snapshot: " + e.getMessage());
+			}
+		} else {
+			return error(out, "No snapshot file is given.");
+		}
+		return true;
+	}
+
+	/**
+	 * Returns a writer for a report which is printed to the given output.
+	 * The report is printed when the writer is flushed or its buffer is full.
+	 * @param out output to print to
+	 * @return writer of the report
+	 */
+	private static Writer report(PrintStream out) {
+		return new BufferedWriter(new PrintStreamWriter(out));
 	}
 
 	/**
 	 * Prints an error message.
+	 * @param out output to print to
 	 * @param err error message to print
+	 * @return {@code false}, the command which printed the error failed
 	 */
-	private static void error(String err) {
-		println("Error! " + err);
+	private static boolean error(PrintStream out, String err) {
+		println(out, "Error! " + err);
+		return false;
 	}
 
 	/**
 	 * Prints a message.
+	 * @param out output to print to
 	 * @param s string to print
 	 */
-	private static void println(String s) {
-		System.out.println(s);
+	private static void println(PrintStream out, String s) {
+		out.println(s);
+	}
+
+	/**
+	 * Prints the lines of a report.
+	 * @param out output to print to
+	 * @param lines lines to print
+	 * @return {@code true}, the report is printed
+	 */
+	private static boolean println(PrintStream out, List<String> lines) {
+		for (String s : lines) {
+			println(out, s);
+		}
+		return true;
+	}
+
+	/**
+	 * Writer which prints to a print stream, so a report is encoded like all
+	 * other output. The print stream is neither flushed nor closed.
+	 */
+	private static final class PrintStreamWriter extends Writer {
+
+		/** print stream to print to */
+		private final PrintStream out;
+
+		/**
+		 * Constructs a new writer which prints to the given print stream.
+		 * @param out print stream to print to
+		 */
+		PrintStreamWriter(PrintStream out) {
+			this.out = out;
+		}
+
+		/**
+		 * Prints the given characters.
+		 * @param cbuf characters to print
+		 * @param off first character to print
+		 * @param len amount of characters to print
+		 */
+		public void write(char[] cbuf, int off, int len) {
+			out.print(new String(cbuf, off, len));
+		}
+
+		/**
+		 * Does nothing, the print stream is flushed by the shell.
+		 */
+		public void flush() {
+		}
+
+		/**
+		 * Does nothing, the print stream is closed by the shell.
+		 */
+		public void close() {
+		}
 	}
 
 }
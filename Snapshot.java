@@ -0,0 +1,363 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * This class writes and reads binary snapshots of the praktomat. A snapshot
+ * contains the tutors with their students, the tasks with their solutions and
+ * corrections, the grade distributions of all of them, and the queue of
+ * missing reviews of each tutor in the order of the submits.
+ * <p>
+ * A snapshot is read by mapping the file into memory. Names are decoded at
+ * once, solution texts and comments stay encoded in the mapped file and are
+ * only decoded when they are requested.
+ * <p>
+ * The snapshot stores the epoch of the journal whose records it contains, so
+ * these records are not replayed again if the journal could not be cleared.
+ * @author Florian Mueller
+ */
+public final class Snapshot {
+
+	/** first bytes of every snapshot file */
+	private static final int MAGIC = 0x50534e50;
+
+	/** version of the snapshot format */
+	private static final int VERSION = 3;
+
+	/** size of the write buffer */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** amount of different grades */
+	private static final int GRADES = 5;
+
+	/** amount of different matriculation numbers */
+	private static final int MAT_NUMBERS = 100000;
+
+	/**
+	 * Private Constructor. This is a Utility class that should not be
+	 * instantiated.
+	 */
+	private Snapshot() {
+	}
+
+	/**
+	 * Writes a snapshot of the praktomat to the given file. The snapshot is
+	 * written to a temporary file first which then replaces the given file.
+	 * @param praktomat praktomat to write
+	 * @param file file of the snapshot
+	 * @throws IOException if the snapshot cannot be written
+	 */
+	public static void write(Praktomat praktomat, File file) throws IOException {
+		File tmp = new File(file.getPath() + ".tmp");
+		FileChannel channel = FileChannel.open(tmp.toPath(),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+			buffer.putInt(MAGIC).putInt(VERSION).putLong(praktomat.getSnapshotEpoch());
+
+			putInt(channel, buffer, praktomat.getTutors().size());
+			int currentTutor = -1;
+			int index = 0;
+			for (Tutor t : praktomat.getTutors()) {
+				if (t == praktomat.getCurrentTutor()) {
+					currentTutor = index;
+				}
+				index++;
+				putString(channel, buffer, t.getName());
+				putGrades(channel, buffer, t.getGrades());
+				putInt(channel, buffer, t.getStudents().size());
+				for (Student s : t.getStudents()) {
+					putInt(channel, buffer, s.getMatNumber());
+					putString(channel, buffer, s.getName());
+					putGrades(channel, buffer, s.getGrades());
+				}
+			}
+			putInt(channel, buffer, currentTutor);
+
+			putInt(channel, buffer, praktomat.getTasks().size());
+			for (Task task : praktomat.getTasks()) {
+				putString(channel, buffer, task.getDescription());
+				putGrades(channel, buffer, task.getGrades());
+				SubmissionMap submissions = task.getSubmissions();
+				putInt(channel, buffer, submissions.size());
+				for (int matNumber : submissions.sortedKeys()) {
+					Solution solution = submissions.getSolution(matNumber);
+					putInt(channel, buffer, matNumber);
+					putString(channel, buffer, solution.getSolutionText());
+					Correction correction = solution.getCorrection();
+					if (correction == null) {
+						putInt(channel, buffer, 0);
+					} else {
+						putInt(channel, buffer, correction.getGrade());
+						putString(channel, buffer, correction.getComment());
+					}
+				}
+			}
+
+			for (Tutor t : praktomat.getTutors()) {
+				List<PendingReview> pendingReviews = t.getPendingReviews();
+				putInt(channel, buffer, pendingReviews.size());
+				for (PendingReview p : pendingReviews) {
+					putInt(channel, buffer, p.getTask().getTaskNumber());
+					putInt(channel, buffer, p.getStudent().getMatNumber());
+				}
+			}
+			flush(channel, buffer);
+			channel.force(false);
+		} finally {
+			channel.close();
+		}
+		Files.move(tmp.toPath(), file.toPath(),
+				StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Reads a praktomat from the snapshot in the given file.
+	 * @param file file of the snapshot
+	 * @return praktomat of the snapshot
+	 * @throws IOException if the file cannot be read or is no snapshot
+	 */
+	public static Praktomat read(File file) throws IOException {
+		return read(file, false);
+	}
+
+	/**
+	 * Reads a praktomat from the snapshot in the given file. The solution
+	 * texts of the snapshot stay in the mapped file, the solutions submitted
+	 * later are stored as selected.
+	 * @param file file of the snapshot
+	 * @param compressSolutionTexts {@code true} to keep the solution texts
+	 *        compressed outside the heap, {@code false} to keep them on the heap
+	 * @return praktomat of the snapshot
+	 * @throws IOException if the file cannot be read or is no snapshot
+	 */
+	public static Praktomat read(File file, boolean compressSolutionTexts)
+			throws IOException {
+		MappedByteBuffer buffer;
+		FileChannel channel = FileChannel.open(file.toPath(),
+				StandardOpenOption.READ);
+		try {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Snapshot is too large to be mapped.");
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} finally {
+			channel.close();
+		}
+
+		try {
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				throw new IOException("File is no snapshot of version "
+						+ VERSION + ".");
+			}
+			Praktomat praktomat = new Praktomat(compressSolutionTexts);
+			praktomat.restoreSnapshotEpoch(buffer.getLong());
+			Student[] students = new Student[MAT_NUMBERS];
+			Tutor[] studTutor = new Tutor[MAT_NUMBERS];
+
+			int tutorCount = buffer.getInt();
+			Tutor[] tutors = new Tutor[tutorCount];
+			for (int i = 0; i < tutorCount; i++) {
+				Tutor tutor = praktomat.restoreTutor(getString(buffer));
+				tutor.setGrades(getGrades(buffer));
+				int studentCount = buffer.getInt();
+				for (int j = 0; j < studentCount; j++) {
+					int matNumber = checkMatNumber(buffer.getInt());
+					Student student = praktomat.restoreStudent(tutor, matNumber,
+							getString(buffer), getGrades(buffer));
+					students[matNumber] = student;
+					studTutor[matNumber] = tutor;
+				}
+				tutors[i] = tutor;
+			}
+			int currentTutor = buffer.getInt();
+			if (currentTutor >= 0) {
+				praktomat.restoreCurrentTutor(tutors[currentTutor]);
+			}
+
+			int taskCount = buffer.getInt();
+			Task[] tasks = new Task[taskCount];
+			int unreviewed = 0;
+			for (int i = 0; i < taskCount; i++) {
+				Task task = praktomat.restoreTask(getString(buffer));
+				tasks[i] = task;
+				task.setGrades(getGrades(buffer));
+				int solutionCount = buffer.getInt();
+				for (int j = 0; j < solutionCount; j++) {
+					int matNumber = checkMatNumber(buffer.getInt());
+					if (students[matNumber] == null) {
+						throw new IOException("Snapshot is damaged.");
+					}
+					MappedText text = getMappedText(buffer);
+					int grade = buffer.getInt();
+					Correction correction = null;
+					if (grade != 0 && !CommandParser.isGrade(grade)) {
+						throw new IOException("Snapshot is damaged.");
+					} else if (grade != 0) {
+						correction = new Correction(grade, getMappedText(buffer));
+					}
+					Solution solution = new Solution(text, correction);
+					task.restoreSolution(students[matNumber], solution);
+					students[matNumber].addSolution(task.getTaskNumber(), solution);
+					if (correction == null) {
+						unreviewed++;
+					} else {
+						// the grades per tutor and task are not stored but counted again
+						task.incGrade(studTutor[matNumber], grade);
+					}
+				}
+			}
+
+			for (Tutor tutor : tutors) {
+				int pendingCount = buffer.getInt();
+				for (int j = 0; j < pendingCount; j++) {
+					Task task = tasks[buffer.getInt() - 1];
+					int matNumber = checkMatNumber(buffer.getInt());
+					if (studTutor[matNumber] != tutor
+							|| !task.containsStudent(students[matNumber])
+							|| task.isReviewed(matNumber)) {
+						throw new IOException("Snapshot is damaged.");
+					}
+					tutor.addPendingReview(new PendingReview(task, students[matNumber],
+							task.findSolution(students[matNumber])));
+				}
+				// a solution queued twice is only kept once
+				unreviewed -= tutor.getMissingReviews();
+			}
+			if (unreviewed != 0) {
+				throw new IOException("Snapshot is damaged.");
+			}
+			return praktomat;
+		} catch (BufferUnderflowException | IllegalArgumentException
+				| IndexOutOfBoundsException | NegativeArraySizeException e) {
+			throw new IOException("Snapshot is damaged.", e);
+		}
+	}
+
+	/**
+	 * Checks a matriculation number read from the snapshot.
+	 * @param matNumber matriculation number to check
+	 * @return the matriculation number
+	 * @throws IOException if it is no matriculation number
+	 */
+	private static int checkMatNumber(int matNumber) throws IOException {
+		if (!CommandParser.inMatNumberRange(matNumber)) {
+			throw new IOException("Snapshot is damaged.");
+		}
+		return matNumber;
+	}
+
+	/**
+	 * Reads a grade distribution.
+	 * @param buffer buffer to read from
+	 * @return amount of each grade, the grade 1 at index 0
+	 */
+	private static int[] getGrades(ByteBuffer buffer) {
+		int[] grades = new int[GRADES];
+		for (int i = 0; i < GRADES; i++) {
+			grades[i] = buffer.getInt();
+		}
+		return grades;
+	}
+
+	/**
+	 * Reads a string and decodes it at once.
+	 * @param buffer buffer to read from
+	 * @return string
+	 */
+	private static String getString(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Reads a string without decoding it.
+	 * @param buffer buffer to read from
+	 * @return encoded string
+	 */
+	private static MappedText getMappedText(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		int offset = buffer.position();
+		buffer.position(offset + length);
+		return new MappedText(buffer, offset, length);
+	}
+
+	/**
+	 * Writes a grade distribution.
+	 * @param channel channel to write to if the buffer is full
+	 * @param buffer buffer to write into
+	 * @param grades grade distribution
+	 * @throws IOException if the buffer cannot be flushed
+	 */
+	private static void putGrades(FileChannel channel, ByteBuffer buffer,
+			int[] grades) throws IOException {
+		for (int i = 0; i < GRADES; i++) {
+			putInt(channel, buffer, grades[i]);
+		}
+	}
+
+	/**
+	 * Writes an int.
+	 * @param channel channel to write to if the buffer is full
+	 * @param buffer buffer to write into
+	 * @param value value to write
+	 * @throws IOException if the buffer cannot be flushed
+	 */
+	private static void putInt(FileChannel channel, ByteBuffer buffer,
+			int value) throws IOException {
+		if (buffer.remaining() < 4) {
+			flush(channel, buffer);
+		}
+		buffer.putInt(value);
+	}
+
+	/**
+	 * Writes a string as its length followed by its UTF-8 bytes.
+	 * @param channel channel to write to if the buffer is full
+	 * @param buffer buffer to write into
+	 * @param s string to write
+	 * @throws IOException if the buffer cannot be flushed
+	 */
+	private static void putString(FileChannel channel, ByteBuffer buffer,
+			String s) throws IOException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		putInt(channel, buffer, bytes.length);
+		if (buffer.remaining() < bytes.length) {
+			flush(channel, buffer);
+		}
+		if (buffer.remaining() < bytes.length) {
+			ByteBuffer large = ByteBuffer.wrap(bytes);
+			while (large.hasRemaining()) {
+				channel.write(large);
+			}
+		} else {
+			buffer.put(bytes);
+		}
+	}
+
+	/**
+	 * Writes the content of the buffer to the channel and empties the buffer.
+	 * @param channel channel to write to
+	 * @param buffer buffer to write
+	 * @throws IOException if the buffer cannot be written
+	 */
+	private static void flush(FileChannel channel, ByteBuffer buffer)
+			throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+}
@@ -5,27 +5,42 @@
  */
 public class Solution {
 
-	/** solution text of this solution */
-	private String solutionText;
+	/** solution text of this solution in the store, null if it is not decoded */
+	private SolutionText solutionText;
+
+	/** encoded solution text of this solution, null if it is decoded */
+	private MappedText mappedText;
 
 	/** correction of this solution */
 	private Correction correction;
 
 	/**
 	 * Constructs a new solution with his solution text.
-	 * @param solutionText solution text from the student
+	 * @param solutionText solution text from the student, shared with all
+	 *        solutions of the same text
 	 */
-	public Solution(String solutionText) {
+	public Solution(SolutionText solutionText) {
 		this.solutionText = solutionText;
 	}
 
+	/**
+	 * Constructs a solution from a snapshot. The solution text is decoded
+	 * each time it is requested.
+	 * @param mappedText encoded solution text from the student
+	 * @param correction correction of this solution, or {@code null}
+	 */
+	public Solution(MappedText mappedText, Correction correction) {
+		this.mappedText = mappedText;
+		this.correction = correction;
+	}
+
 	/**
 	 * Adds a new correction to this solution which contains a grade and comment.
 	 * @param grade grade for this solution
 	 * @param comment comment for this solution
 	 */
 	public void addCorrection(int grade, String comment) {
-		if (!Integer.toString(grade).matches("[1-5{1}]")) {
+		if (!CommandParser.isGrade(grade)) {
 			throw new IllegalArgumentException(
 					"Error! Grade must be a one digit number between one and five.");
 		} else if (comment == null) {
@@ -39,7 +54,10 @@ public class Solution {
 	 * @return the solution text of this solution
 	 */
 	public String getSolutionText() {
-		return this.solutionText;
+		if (this.solutionText == null) {
+			return this.mappedText.toString();
+		}
+		return this.solutionText.getText();
 	}
 
 	/**
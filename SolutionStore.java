@@ -0,0 +1,206 @@
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class stores the solution texts by their content, so identical texts
+ * are kept only once however many students submit them. A solution keeps the
+ * solution text of the store instead of its own string.
+ * <p>
+ * A compressing store keeps the texts in a {@link BlobStore} outside the heap
+ * and finds them by a 64 bit hash of their content. A text whose hash belongs
+ * to a different text already is stored without sharing.
+ * <p>
+ * The store counts the references and estimates the heap it saves. A string
+ * takes {@value #STRING_BYTES} bytes plus its characters, one byte each if
+ * all are Latin-1 and two otherwise, padded to 8 bytes. Each stored text costs
+ * {@value #ENTRY_BYTES} bytes for the solution text and its map entry, or
+ * {@value #BLOB_ENTRY_BYTES} bytes if it is compressed.
+ * @author Florian Mueller
+ */
+public class SolutionStore {
+
+	/** size of a string object and the header of its array in bytes */
+	private static final int STRING_BYTES = 40;
+
+	/** size of a solution text, its counter, its map entry and table slot in bytes */
+	private static final int ENTRY_BYTES = 80;
+
+	/** size of a compressed solution text, its counter and its map entry in bytes */
+	private static final int BLOB_ENTRY_BYTES = 112;
+
+	/** stored texts, keyed by their content; null if the texts are compressed */
+	private final ConcurrentMap<String, SolutionText> texts;
+
+	/** compressed texts, keyed by the hash of their content; null if not compressed */
+	private final ConcurrentMap<Long, SolutionText> blobTexts;
+
+	/** compressed texts outside the heap, null if the texts are not compressed */
+	private final BlobStore blobs;
+
+	/** amount of stored texts */
+	private final AtomicInteger stored = new AtomicInteger();
+
+	/** amount of references to all stored texts */
+	private final AtomicLong references = new AtomicLong();
+
+	/** heap the referring solutions would take with texts of their own */
+	private final AtomicLong referencedBytes = new AtomicLong();
+
+	/** heap taken by the stored texts */
+	private final AtomicLong storedBytes = new AtomicLong();
+
+	/**
+	 * Constructs a new store which keeps the texts on the heap.
+	 */
+	public SolutionStore() {
+		this(false);
+	}
+
+	/**
+	 * Constructs a new store.
+	 * @param compressed {@code true} to keep the texts compressed outside the
+	 *        heap, {@code false} to keep them on the heap
+	 */
+	public SolutionStore(boolean compressed) {
+		if (compressed) {
+			this.texts = null;
+			this.blobTexts = new ConcurrentHashMap<Long, SolutionText>();
+			this.blobs = new BlobStore();
+		} else {
+			this.texts = new ConcurrentHashMap<String, SolutionText>();
+			this.blobTexts = null;
+			this.blobs = null;
+		}
+	}
+
+	/**
+	 * Returns the stored text with the content of the given text, storing it
+	 * first if it is new, and counts a reference to it.
+	 * @param text content of the solution text
+	 * @return stored solution text
+	 */
+	public SolutionText add(String text) {
+		SolutionText stored = blobs != null ? this.addBlob(text) : texts.get(text);
+		if (stored == null) {
+			SolutionText created = new SolutionText(text, bytes(text));
+			stored = texts.putIfAbsent(text, created);
+			if (stored == null) {
+				stored = this.created(created, created.getBytes() + ENTRY_BYTES);
+			}
+		}
+		stored.reference();
+		references.incrementAndGet();
+		referencedBytes.addAndGet(stored.getBytes());
+		return stored;
+	}
+
+	/**
+	 * Returns the amount of distinct texts.
+	 * @return amount of stored texts
+	 */
+	public int getTexts() {
+		return stored.get();
+	}
+
+	/**
+	 * Returns the amount of solutions referring to the stored texts.
+	 * @return amount of references
+	 */
+	public long getReferences() {
+		return references.get();
+	}
+
+	/**
+	 * Returns the estimated heap saved by storing each text once, that is the
+	 * heap of a text per solution minus the heap of the store.
+	 * @return saved bytes, negative if hardly any text is shared
+	 */
+	public long getSavedBytes() {
+		return referencedBytes.get() - storedBytes.get();
+	}
+
+	/**
+	 * Describes the store.
+	 * @return amount of texts and references, dedup ratio and saved heap, or
+	 *         the overhead of the store if it saves nothing, and the bytes
+	 *         outside the heap if the texts are compressed
+	 */
+	public String toString() {
+		int stored = this.getTexts();
+		long referenced = this.getReferences();
+		double ratio = stored == 0 ? 1 : (double) referenced / stored;
+		long saved = this.getSavedBytes();
+		return stored + " solution text(s) for " + referenced
+				+ " solution(s), dedup ratio " + String.format(Locale.US, "%.2f", ratio)
+				+ ", " + (saved >= 0 ? saved + " bytes saved" : -saved + " bytes overhead")
+				+ (blobs != null ? ", " + blobs.getBytes() + " bytes off heap" : "");
+	}
+
+	/**
+	 * Returns the compressed text with the content of the given text, storing
+	 * it first if it is new.
+	 * @param text content of the solution text
+	 * @return stored solution text
+	 */
+	private SolutionText addBlob(String text) {
+		Long key = hash(text);
+		SolutionText stored = blobTexts.get(key);
+		if (stored == null) {
+			SolutionText created = new BlobText(blobs, blobs.put(text), bytes(text));
+			stored = blobTexts.putIfAbsent(key, created);
+			if (stored == null) {
+				return this.created(created, BLOB_ENTRY_BYTES);
+			}
+			// the blob of a text submitted twice at the same time stays unused
+		}
+		if (!stored.getText().equals(text)) {
+			SolutionText created = new BlobText(blobs, blobs.put(text), bytes(text));
+			return this.created(created, BLOB_ENTRY_BYTES);
+		}
+		return stored;
+	}
+
+	/**
+	 * Counts a newly stored text.
+	 * @param created stored text
+	 * @param bytes heap taken by the text
+	 * @return the stored text
+	 */
+	private SolutionText created(SolutionText created, int bytes) {
+		stored.incrementAndGet();
+		storedBytes.addAndGet(bytes);
+		return created;
+	}
+
+	/**
+	 * Returns the 64 bit FNV-1a hash of the characters of a text.
+	 * @param text the text
+	 * @return hash of the text
+	 */
+	private static long hash(String text) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < text.length(); i++) {
+			hash = (hash ^ text.charAt(i)) * 0x100000001b3L;
+		}
+		return hash;
+	}
+
+	/**
+	 * Estimates the size of a string on the heap.
+	 * @param text the string
+	 * @return size in bytes
+	 */
+	private static int bytes(String text) {
+		int perChar = 1;
+		for (int i = 0; i < text.length() && perChar == 1; i++) {
+			if (text.charAt(i) > 0xff) {
+				perChar = 2;
+			}
+		}
+		return (STRING_BYTES + perChar * text.length() + 7) & ~7;
+	}
+
+}
@@ -0,0 +1,70 @@
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class represents a solution text in the solution store. All solutions
+ * with the same text share one solution text, which counts the solutions
+ * referring to it.
+ * @author Florian Mueller
+ */
+public class SolutionText {
+
+	/** the text, null if it is kept outside the heap */
+	private final String text;
+
+	/** estimated size of the text as a string on the heap in bytes */
+	private final int bytes;
+
+	/** amount of solutions referring to this text */
+	private final AtomicInteger references;
+
+	/**
+	 * Constructs a new solution text without references.
+	 * @param text the text
+	 * @param bytes estimated size of the text as a string on the heap in bytes
+	 */
+	SolutionText(String text, int bytes) {
+		this.text = text;
+		this.bytes = bytes;
+		this.references = new AtomicInteger();
+	}
+
+	/**
+	 * Returns the text.
+	 * @return the text
+	 */
+	public String getText() {
+		return this.text;
+	}
+
+	/**
+	 * Returns the estimated size of the text as a string on the heap.
+	 * @return size in bytes
+	 */
+	int getBytes() {
+		return this.bytes;
+	}
+
+	/**
+	 * Returns the amount of solutions referring to this text.
+	 * @return amount of references
+	 */
+	public int getReferences() {
+		return this.references.get();
+	}
+
+	/**
+	 * Counts a further solution referring to this text.
+	 */
+	void reference() {
+		this.references.incrementAndGet();
+	}
+
+	/**
+	 * Returns the text.
+	 * @return the text
+	 */
+	public String toString() {
+		return this.text;
+	}
+
+}
@@ -0,0 +1,255 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class hammers one praktomat with submits, reviews and re-reviews from
+ * many threads at the same time. All threads work on the same tasks and the
+ * students of the same tutors, so they compete for the same locks. Now and
+ * then a thread writes a report meanwhile, which must list every student
+ * once. Afterwards the counts of the praktomat are checked against each
+ * other:
+ * <ul>
+ * <li>the grades of all students, of all tutors and of all tasks agree, and
+ * so do the grades per tutor and task with the grades of each task</li>
+ * <li>every submitted solution is either reviewed or pending</li>
+ * <li>the submits accepted by the threads are the submitted solutions</li>
+ * </ul>
+ * @author Florian Mueller
+ */
+public final class StressTest {
+
+	/** default amount of threads */
+	private static final int THREADS = 16;
+
+	/** default amount of operations per thread */
+	private static final int OPERATIONS = 200000;
+
+	/** amount of tutors */
+	private static final int TUTORS = 5;
+
+	/** amount of students per tutor */
+	private static final int STUDENTS_PER_TUTOR = 400;
+
+	/** amount of tasks */
+	private static final int TASKS = 500;
+
+	/** amount of different grades */
+	private static final int GRADES = 5;
+
+	/** one in this amount of operations is a report */
+	private static final int REPORT_RATE = 20000;
+
+	/** index of the submits in the counts of a thread */
+	private static final int SUBMITS = 0;
+
+	/** index of the reviews in the counts of a thread */
+	private static final int REVIEWS = 1;
+
+	/** index of the rejected operations in the counts of a thread */
+	private static final int REJECTED = 2;
+
+	/**
+	 * Private Constructor. This is a Utility class that should not be
+	 * instantiated.
+	 */
+	private StressTest() {
+	}
+
+	/**
+	 * main method - runs the stress test and prints whether the counts of the
+	 * praktomat agree.
+	 * @param args optional amount of threads and operations per thread
+	 * @throws Exception if a thread fails
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length > 2) {
+			System.out.println("Error! Wrong number of parameters.");
+			return;
+		}
+		int threads = args.length > 0 ? Integer.parseInt(args[0]) : THREADS;
+		int operations = args.length > 1 ? Integer.parseInt(args[1]) : OPERATIONS;
+		if (threads < 1 || operations < 1) {
+			System.out.println("Error! Threads and operations must be numbers > 0.");
+			return;
+		}
+
+		final Praktomat praktomat = new Praktomat();
+		for (int t = 0; t < TUTORS; t++) {
+			praktomat.addTutor("tutor" + (char) ('a' + t));
+			for (int s = 0; s < STUDENTS_PER_TUTOR; s++) {
+				praktomat.addStudent(t * STUDENTS_PER_TUTOR + s, "student");
+			}
+		}
+		for (int t = 0; t < TASKS; t++) {
+			praktomat.addTask("stress");
+		}
+
+		final CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<long[]>> results = new ArrayList<Future<long[]>>();
+		for (int i = 0; i < threads; i++) {
+			final long seed = i;
+			final int amount = operations;
+			results.add(executor.submit(new Callable<long[]>() {
+				public long[] call() throws Exception {
+					start.await();
+					return run(praktomat, new Random(seed), amount);
+				}
+			}));
+		}
+		long begin = System.nanoTime();
+		start.countDown();
+		long[] counts = new long[3];
+		try {
+			for (Future<long[]> f : results) {
+				long[] c = f.get();
+				for (int i = 0; i < counts.length; i++) {
+					counts[i] += c[i];
+				}
+			}
+		} catch (ExecutionException e) {
+			System.out.println("Error! " + e.getCause());
+			return;
+		} finally {
+			executor.shutdownNow();
+		}
+		long time = System.nanoTime() - begin;
+		System.out.println("threads: " + threads + ", operations: "
+				+ (long) threads * operations + ", time: " + time / 1000000 + " ms");
+		System.out.println("submits: " + counts[SUBMITS] + ", reviews: "
+				+ counts[REVIEWS] + ", rejected: " + counts[REJECTED]);
+
+		String error = check(praktomat, counts);
+		System.out.println(error == null ? "ok" : "Error! " + error);
+	}
+
+	/**
+	 * Runs the operations of one thread. Each operation picks a random task
+	 * and student and submits or reviews, so solutions are reviewed several
+	 * times. Operations on missing solutions and second submits are rejected
+	 * by the praktomat and only counted.
+	 * @param praktomat praktomat to operate on
+	 * @param random source of the tasks, students and grades
+	 * @param operations amount of operations
+	 * @return amount of submits, reviews and rejected operations
+	 * @throws Exception if a report fails
+	 */
+	private static long[] run(Praktomat praktomat, Random random, int operations)
+			throws Exception {
+		long[] counts = new long[3];
+		for (int i = 0; i < operations; i++) {
+			if (random.nextInt(REPORT_RATE) == 0) {
+				report(praktomat);
+			}
+			int taskId = 1 + random.nextInt(TASKS);
+			int matNumber = random.nextInt(TUTORS * STUDENTS_PER_TUTOR);
+			try {
+				if (random.nextInt(3) == 0) {
+					praktomat.submit(taskId, matNumber, "solution");
+					counts[SUBMITS]++;
+				} else {
+					praktomat.review(taskId, matNumber, 1 + random.nextInt(GRADES),
+							"comment");
+					counts[REVIEWS]++;
+				}
+			} catch (IllegalArgumentException e) {
+				counts[REJECTED]++;
+			}
+		}
+		return counts;
+	}
+
+	/**
+	 * Writes the reports while the other threads submit and review. The
+	 * summary of the students must list each student once.
+	 * @param praktomat praktomat to report on
+	 * @throws Exception if a report fails or a student is missing or written
+	 *         twice
+	 */
+	private static void report(Praktomat praktomat) throws Exception {
+		StringBuilder report = new StringBuilder();
+		praktomat.results(report);
+		praktomat.summaryTask(report, true);
+		praktomat.summaryTutor(report, true);
+		praktomat.compareTutors(report);
+		praktomat.queryTutors(true, ">=", 0, report);
+		int students = praktomat.summaryStudent().size();
+		if (students != TUTORS * STUDENTS_PER_TUTOR) {
+			throw new IllegalStateException("Summary of the students lists "
+					+ students + " students.");
+		}
+	}
+
+	/**
+	 * Checks the counts of the praktomat against each other after all threads
+	 * finished.
+	 * @param praktomat praktomat to check
+	 * @param counts amount of submits, reviews and rejected operations of all
+	 *        threads
+	 * @return description of the first difference, or null if all agree
+	 */
+	private static String check(Praktomat praktomat, long[] counts) {
+		int[] studentGrades = new int[GRADES];
+		int[] tutorGrades = new int[GRADES];
+		int[] taskGrades = new int[GRADES];
+		long submitted = 0;
+		long pending = 0;
+		for (Tutor tutor : praktomat.getTutors()) {
+			add(tutorGrades, tutor.getGrades());
+			pending += tutor.getMissingReviews();
+			for (Student student : tutor.getStudents()) {
+				add(studentGrades, student.getGrades());
+			}
+		}
+		for (Task task : praktomat.getTasks()) {
+			int[] grades = task.getGrades();
+			add(taskGrades, grades);
+			submitted += task.getSubmissions().size();
+			int[] cells = new int[GRADES];
+			for (Tutor tutor : praktomat.getTutors()) {
+				add(cells, task.getGrades(tutor));
+			}
+			if (!Arrays.equals(grades, cells)) {
+				return "Grades per tutor of task " + task.getTaskNumber()
+						+ " differ: " + Arrays.toString(cells) + " instead of "
+						+ Arrays.toString(grades) + ".";
+			}
+		}
+		long reviewed = GradeStatistics.count(taskGrades);
+		System.out.println("submitted: " + submitted + ", reviewed: " + reviewed
+				+ ", pending: " + pending);
+
+		if (!Arrays.equals(studentGrades, taskGrades)) {
+			return "Grades of the students " + Arrays.toString(studentGrades)
+					+ " differ from the tasks " + Arrays.toString(taskGrades) + ".";
+		} else if (!Arrays.equals(tutorGrades, taskGrades)) {
+			return "Grades of the tutors " + Arrays.toString(tutorGrades)
+					+ " differ from the tasks " + Arrays.toString(taskGrades) + ".";
+		} else if (submitted != reviewed + pending) {
+			return "Submitted solutions are neither reviewed nor pending.";
+		} else if (submitted != counts[SUBMITS]) {
+			return "Submitted solutions differ from the accepted submits.";
+		}
+		return null;
+	}
+
+	/**
+	 * Adds the amounts of grades to the sum.
+	 * @param sum amounts of grades summed up
+	 * @param grades amounts of grades to add
+	 */
+	private static void add(int[] sum, int[] grades) {
+		for (int i = 0; i < sum.length; i++) {
+			sum[i] += grades[i];
+		}
+	}
+
+}
@@ -1,3 +1,7 @@
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
 /**
  * This class represents the students of the praktomat. It stores and
  * administers the students.
@@ -12,7 +16,16 @@ public class Student implements AverageGrade, Comparable<Student> {
 	private String name;
 
 	/** amount of all grades between 1 and 5 from this student */
-	private int[] grade;
+	private AtomicIntegerArray grade;
+
+	/** task ids of the solutions of this student, ascending */
+	private int[] taskIds;
+
+	/** solutions of this student, in the order of their task ids */
+	private Solution[] solutions;
+
+	/** amount of solutions of this student */
+	private int solutionCount;
 
 	/**
 	 * Constructs a new student with his name and matriculation number.
@@ -22,7 +35,9 @@ public class Student implements AverageGrade, Comparable<Student> {
 	public Student(String name, int matNumber) {
 		this.matNumber = matNumber;
 		this.name = name;
-		this.grade = new int[5];
+		this.grade = new AtomicIntegerArray(5);
+		this.taskIds = new int[0];
+		this.solutions = new Solution[0];
 	}
 
 	/**
@@ -58,7 +73,7 @@ public class Student implements AverageGrade, Comparable<Student> {
 			throw new IllegalArgumentException(
 					"Error! Grade must be between 1 and 5.");
 		}
-		this.grade[grade - 1]++;
+		this.grade.incrementAndGet(grade - 1);
 	}
 
 	/**
@@ -70,7 +85,91 @@ public class Student implements AverageGrade, Comparable<Student> {
 			throw new IllegalArgumentException(
 					"Error! Grade must be between 1 and 5.");
 		}
-		this.grade[grade - 1]--;
+		this.grade.decrementAndGet(grade - 1);
+	}
+
+	/**
+	 * Adds the given amounts of grades, used to apply a batch of reviews.
+	 * @param amounts amount of each grade to add, may be negative, the grade 1
+	 *        at index 0
+	 */
+	public void addGrades(int[] amounts) {
+		for (int i = 0; i < this.grade.length(); i++) {
+			if (amounts[i] != 0) {
+				this.grade.addAndGet(i, amounts[i]);
+			}
+		}
+	}
+
+	/**
+	 * Returns a copy of the amount of all grades between 1 and 5 from this student,
+	 * used to write snapshots.
+	 * @return amount of each grade, the grade 1 at index 0
+	 */
+	int[] getGrades() {
+		int[] grades = new int[grade.length()];
+		for (int i = 0; i < grades.length; i++) {
+			grades[i] = grade.get(i);
+		}
+		return grades;
+	}
+
+	/**
+	 * Sets the amount of all grades between 1 and 5 from this student, used to read
+	 * snapshots.
+	 * @param grades amount of each grade, the grade 1 at index 0
+	 */
+	void setGrades(int[] grades) {
+		for (int i = 0; i < grades.length; i++) {
+			grade.set(i, grades[i]);
+		}
+	}
+
+	/**
+	 * Adds a solution of this student to his transcript. While the praktomat
+	 * is shared the caller must hold the lock of this student.
+	 * @param taskId task id of the solution
+	 * @param solution solution of this student
+	 */
+	void addSolution(int taskId, Solution solution) {
+		if (solutionCount == taskIds.length) {
+			int capacity = Math.max(4, solutionCount * 2);
+			taskIds = Arrays.copyOf(taskIds, capacity);
+			solutions = Arrays.copyOf(solutions, capacity);
+		}
+		int i = solutionCount;
+		// the solutions are submitted mostly in the order of the tasks
+		while (i > 0 && taskIds[i - 1] > taskId) {
+			taskIds[i] = taskIds[i - 1];
+			solutions[i] = solutions[i - 1];
+			i--;
+		}
+		taskIds[i] = taskId;
+		solutions[i] = solution;
+		solutionCount++;
+	}
+
+	/**
+	 * Writes the solutions of this student with their task ids, grades and
+	 * comments, one per line in the order of the tasks. The caller must hold
+	 * the lock of this student.
+	 * @param out output to write to
+	 * @throws IOException if the output cannot be written
+	 */
+	public void transcript(Appendable out) throws IOException {
+		for (int i = 0; i < solutionCount; i++) {
+			out.append("task id(");
+			ReportFormat.appendInt(out, taskIds[i]);
+			out.append("): ");
+			Correction correction = solutions[i].getCorrection();
+			if (correction != null) {
+				ReportFormat.appendInt(out, correction.getGrade());
+				out.append(": ").append(correction.getComment());
+			} else {
+				out.append("not reviewed");
+			}
+			ReportFormat.newLine(out);
+		}
 	}
 
 	/**
@@ -82,9 +181,10 @@ public class Student implements AverageGrade, Comparable<Student> {
 	public double averageGrade() {
 		double result = 0;
 		double counter = 0;
-		for (int i = 0; i < grade.length; i++) {
-			counter = counter + grade[i] * (i + 1);
-			result = result + grade[i];
+		for (int i = 0; i < grade.length(); i++) {
+			int amount = grade.get(i);
+			counter = counter + amount * (i + 1);
+			result = result + amount;
 		}
 		if (result != 0) {
 			result = counter / result;
@@ -0,0 +1,135 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * This class keeps the graded students in the order of summary-student: by
+ * their average grade truncated to hundredths, then by matriculation number.
+ * A student is repositioned when his grades change, so the order is never
+ * sorted again. Students without a grade are not ranked.
+ * <p>
+ * The grades of a student may only change between {@link #remove(Student)}
+ * and {@link #add(Student)}, while holding the lock of the student.
+ * @author Florian Mueller
+ */
+public class StudentRanking {
+
+	/** graded students, keyed by average grade times 100 and matriculation number */
+	private final ConcurrentSkipListMap<Long, Student> ranking
+			= new ConcurrentSkipListMap<Long, Student>();
+
+	/**
+	 * Ranks the student by his current grades, if he has any.
+	 * @param student student to rank
+	 */
+	public void add(Student student) {
+		if (student.averageGrade() > 0) {
+			ranking.put(key(student), student);
+		}
+	}
+
+	/**
+	 * Removes the student from the ranking before his grades change.
+	 * @param student student to remove
+	 */
+	public void remove(Student student) {
+		if (student.averageGrade() > 0) {
+			ranking.remove(key(student));
+		}
+	}
+
+	/**
+	 * Returns all graded students, the best first.
+	 * @return graded students in ascending order of their average grade
+	 */
+	public Collection<Student> students() {
+		return ranking.values();
+	}
+
+	/**
+	 * Returns the best graded students.
+	 * @param k maximum amount of students
+	 * @return up to k students, the best first
+	 */
+	public List<Student> best(int k) {
+		return first(ranking.values().iterator(), k);
+	}
+
+	/**
+	 * Returns the worst graded students.
+	 * @param k maximum amount of students
+	 * @return up to k students, the worst first
+	 */
+	public List<Student> worst(int k) {
+		return first(ranking.descendingMap().values().iterator(), k);
+	}
+
+	/**
+	 * Returns the graded students whose average grade is at least about the
+	 * given grade. The students of the hundredth of the grade are included
+	 * whether their average is above or below it, so the caller has to
+	 * compare their average grades again.
+	 * @param grade smallest average grade
+	 * @return students in ascending order of their average grade
+	 */
+	public Collection<Student> from(double grade) {
+		return ranking.tailMap(hundredths(grade) << 32).values();
+	}
+
+	/**
+	 * Returns the graded students whose average grade is at most about the
+	 * given grade. The students of the hundredth of the grade are included
+	 * whether their average is above or below it, so the caller has to
+	 * compare their average grades again.
+	 * @param grade greatest average grade
+	 * @return students in ascending order of their average grade
+	 */
+	public Collection<Student> to(double grade) {
+		return ranking.headMap((hundredths(grade) + 1) << 32).values();
+	}
+
+	/**
+	 * Returns the first students of the given iteration. A student who is
+	 * repositioned during the iteration may be met twice, but is taken once.
+	 * @param students students to take from
+	 * @param k maximum amount of students
+	 * @return up to k students
+	 */
+	private static List<Student> first(Iterator<Student> students, int k) {
+		List<Student> first = new ArrayList<Student>();
+		HashSet<Student> taken = new HashSet<Student>();
+		while (first.size() < k && students.hasNext()) {
+			Student student = students.next();
+			if (taken.add(student)) {
+				first.add(student);
+			}
+		}
+		return first;
+	}
+
+	/**
+	 * Returns the key of the student, the average grade times 100 truncated
+	 * like in {@link Student#compareTo(Student)} in the upper half and the
+	 * matriculation number in the lower half.
+	 * @param student graded student
+	 * @return key of the student
+	 */
+	private static long key(Student student) {
+		return (long) (int) (student.averageGrade() * 100) << 32
+				| student.getMatNumber();
+	}
+
+	/**
+	 * Returns the grade times 100 truncated like in the keys. Grades are
+	 * limited to the range of 0 to 10, as no average grade is outside.
+	 * @param grade grade
+	 * @return grade times 100
+	 */
+	private static long hundredths(double grade) {
+		return (int) (Math.max(0, Math.min(10, grade)) * 100);
+	}
+
+}
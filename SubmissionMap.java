@@ -0,0 +1,160 @@
+import java.util.Arrays;
+
+/**
+ * This class stores the submissions of a task. Every entry holds the solution
+ * and the student for a matriculation number. The matriculation numbers are
+ * kept as primitive ints in an open addressing hash table, so no key is boxed.
+ * @author Florian Mueller
+ */
+public class SubmissionMap {
+
+	/** marks a free slot, matriculation numbers are never negative */
+	private static final int FREE = -1;
+
+	/** initial amount of slots, always a power of two */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** matriculation numbers of the entries */
+	private int[] keys;
+
+	/** solutions of the entries */
+	private Solution[] solutions;
+
+	/** students of the entries */
+	private Student[] students;
+
+	/** amount of entries */
+	private int size;
+
+	/** matriculation numbers in ascending order, null if outdated */
+	private int[] sortedKeys;
+
+	/**
+	 * Constructs a new empty submission map.
+	 */
+	public SubmissionMap() {
+		this.allocate(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Returns the amount of entries.
+	 * @return amount of entries
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Adds the solution of the given student. An existing entry of the
+	 * student is replaced.
+	 * @param student student submits the solution
+	 * @param solution solution of the student
+	 */
+	public void put(Student student, Solution solution) {
+		int matNumber = student.getMatNumber();
+		if (matNumber < 0) {
+			throw new IllegalArgumentException(
+					"Error! Matriculation number must be a positive number.");
+		}
+		int slot = this.slot(matNumber);
+		if (keys[slot] == FREE) {
+			if ((size + 1) * 4 > keys.length * 3) {
+				this.allocate(keys.length * 2);
+				slot = this.slot(matNumber);
+			}
+			keys[slot] = matNumber;
+			size++;
+			sortedKeys = null;
+		}
+		solutions[slot] = solution;
+		students[slot] = student;
+	}
+
+	/**
+	 * Checks whether there is an entry for the matriculation number.
+	 * @param matNumber matriculation number of the student
+	 * @return {@code true} if there exists the entry, {@code false} otherwise
+	 */
+	public boolean containsKey(int matNumber) {
+		return matNumber >= 0 && keys[this.slot(matNumber)] != FREE;
+	}
+
+	/**
+	 * Returns the solution for the matriculation number.
+	 * @param matNumber matriculation number of the student
+	 * @return solution of the student, or {@code null} if there is none
+	 */
+	public Solution getSolution(int matNumber) {
+		return matNumber < 0 ? null : solutions[this.slot(matNumber)];
+	}
+
+	/**
+	 * Returns the student for the matriculation number.
+	 * @param matNumber matriculation number of the student
+	 * @return student, or {@code null} if there is no entry
+	 */
+	public Student getStudent(int matNumber) {
+		return matNumber < 0 ? null : students[this.slot(matNumber)];
+	}
+
+	/**
+	 * Returns all matriculation numbers in ascending order. The returned array
+	 * is shared and must not be modified.
+	 * @return matriculation numbers in ascending order
+	 */
+	public int[] sortedKeys() {
+		if (sortedKeys == null) {
+			int[] sorted = new int[size];
+			int i = 0;
+			for (int key : keys) {
+				if (key != FREE) {
+					sorted[i++] = key;
+				}
+			}
+			Arrays.sort(sorted);
+			sortedKeys = sorted;
+		}
+		return sortedKeys;
+	}
+
+	/**
+	 * Finds the slot of the matriculation number, or the free slot where it
+	 * belongs.
+	 * @param matNumber matriculation number of the student
+	 * @return slot of the matriculation number
+	 */
+	private int slot(int matNumber) {
+		int mask = keys.length - 1;
+		int hash = matNumber * 0x9E3779B9;
+		int slot = (hash ^ (hash >>> 16)) & mask;
+		while (keys[slot] != FREE && keys[slot] != matNumber) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Allocates the given amount of slots and moves the existing entries.
+	 * @param capacity new amount of slots, a power of two
+	 */
+	private void allocate(int capacity) {
+		int[] oldKeys = keys;
+		Solution[] oldSolutions = solutions;
+		Student[] oldStudents = students;
+		keys = new int[capacity];
+		Arrays.fill(keys, FREE);
+		solutions = new Solution[capacity];
+		students = new Student[capacity];
+		if (oldKeys != null) {
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != FREE) {
+					int slot = this.slot(oldKeys[i]);
+					keys[slot] = oldKeys[i];
+					solutions[slot] = oldSolutions[i];
+					students[slot] = oldStudents[i];
+				}
+			}
+		}
+	}
+
+}
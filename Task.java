@@ -1,10 +1,7 @@
-import java.math.RoundingMode;
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
-import java.util.TreeMap;
 
 /**
  * This class represents the tasks of the praktomat. It stores and administers
@@ -22,23 +19,39 @@ public class Task implements AverageGrade {
 	/** amount of all grades between 1 and 5 from this task */
 	private int[] grade;
 
-	/** solutions of this task */
-	private TreeMap<Integer, Solution> matSol;
+	/**
+	 * amount of all grades between 1 and 5 from this task per tutor, the
+	 * slice of this task in the tutor x task cube of grades
+	 */
+	private HashMap<Tutor, int[]> tutorGrade;
+
+	/** solutions of this task with their students */
+	private SubmissionMap matSol;
+
+	/** matriculation numbers of the students whose solution is not reviewed yet */
+	private BitSet unreviewed;
 
-	/** students to the solutions */
-	private TreeMap<Integer, Student> matStud;
+	/** matriculation numbers of the students whose solution is reviewed */
+	private BitSet reviewed;
+
+	/** store of the solution texts of all tasks */
+	private SolutionStore solutionTexts;
 
 	/**
 	 * Constructs the task with a task id and his description.
 	 * @param taskNumber id of this task
 	 * @param description description of this task
+	 * @param solutionTexts store of the solution texts of all tasks
 	 */
-	public Task(int taskNumber, String description) {
+	public Task(int taskNumber, String description, SolutionStore solutionTexts) {
 		this.taskNumber = taskNumber;
 		this.description = description;
 		this.grade = new int[5];
-		matSol = new TreeMap<Integer, Solution>();
-		matStud = new TreeMap<Integer, Student>();
+		this.tutorGrade = new HashMap<Tutor, int[]>();
+		this.solutionTexts = solutionTexts;
+		matSol = new SubmissionMap();
+		unreviewed = new BitSet();
+		reviewed = new BitSet();
 	}
 
 	/**
@@ -58,11 +71,13 @@ public class Task implements AverageGrade {
 	}
 
 	/**
-	 * Adds a solution to this task. Only one solution per task and student is allowed.
+	 * Adds a solution to this task. Only one solution per task and student is
+	 * allowed. The text is kept in the store of the solution texts.
 	 * @param student student submits the solution
 	 * @param solutionText solution
+	 * @return the added solution
 	 */
-	public void addSolution(Student student, String solutionText) {
+	public Solution addSolution(Student student, String solutionText) {
 		if (solutionText == null) {
 			throw new IllegalArgumentException("Error! No solution is given.");
 		} else if (student == null) {
@@ -71,9 +86,43 @@ public class Task implements AverageGrade {
 			throw new IllegalArgumentException(
 					"Error! A solution is already given.");
 		}
-		Solution solution = new Solution(solutionText);
-		matSol.put(student.getMatNumber(), solution);
-		matStud.put(student.getMatNumber(), student);
+		Solution solution = new Solution(solutionTexts.add(solutionText));
+		matSol.put(student, solution);
+		unreviewed.set(student.getMatNumber());
+		return solution;
+	}
+
+	/**
+	 * Adds a solution read from a snapshot without any checks.
+	 * @param student student submits the solution
+	 * @param solution solution, reviewed or not
+	 */
+	void restoreSolution(Student student, Solution solution) {
+		matSol.put(student, solution);
+		if (solution.getCorrection() != null) {
+			reviewed.set(student.getMatNumber());
+		} else {
+			unreviewed.set(student.getMatNumber());
+		}
+	}
+
+	/**
+	 * Marks the solution of the student as reviewed, used at its first review.
+	 * @param matNumber matriculation number of the student
+	 */
+	public void setReviewed(int matNumber) {
+		unreviewed.clear(matNumber);
+		reviewed.set(matNumber);
+	}
+
+	/**
+	 * Checks whether the solution of the student is reviewed.
+	 * @param matNumber matriculation number of the student
+	 * @return {@code true} if the solution is reviewed, {@code false} if it
+	 *         is not reviewed or not submitted
+	 */
+	public boolean isReviewed(int matNumber) {
+		return reviewed.get(matNumber);
 	}
 
 	/**
@@ -91,7 +140,7 @@ public class Task implements AverageGrade {
 	 * @return student
 	 */
 	public Solution findSolution(Student student) {
-		return matSol.get(student.getMatNumber());
+		return matSol.getSolution(student.getMatNumber());
 	}
 
 	/**
@@ -99,13 +148,82 @@ public class Task implements AverageGrade {
 	 * @return list of all solutions from this task
 	 */
 	public List<String> listSolutions() {
-		List<String> listSolutions = new ArrayList<String>();
-		for (Integer i : matSol.keySet()) {
-			listSolutions.add("(" + matStud.get(i).getMatNumber() + ","
-					+ matStud.get(i).getName() + "): "
-					+ matSol.get(i).getSolutionText());
+		StringBuilder report = new StringBuilder();
+		try {
+			this.listSolutions(report);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return ReportFormat.lines(report);
+	}
+
+	/**
+	 * Writes all solutions of this task with their students, one per line.
+	 * @param out output to write to
+	 * @throws IOException if the output cannot be written
+	 */
+	public void listSolutions(Appendable out) throws IOException {
+		for (int i : matSol.sortedKeys()) {
+			this.appendSolution(out, i);
+		}
+	}
+
+	/**
+	 * Writes the reviewed or the not reviewed solutions of this task with
+	 * their students, one per line. Only the matching solutions are visited.
+	 * @param out output to write to
+	 * @param reviewed {@code true} for the reviewed solutions, {@code false}
+	 *        for the others
+	 * @throws IOException if the output cannot be written
+	 */
+	public void listSolutions(Appendable out, boolean reviewed)
+			throws IOException {
+		BitSet matNumbers = reviewed ? this.reviewed : this.unreviewed;
+		for (int i = matNumbers.nextSetBit(0); i >= 0; i = matNumbers.nextSetBit(i + 1)) {
+			this.appendSolution(out, i);
+		}
+	}
+
+	/**
+	 * Writes the solutions of the given students with their students, one per
+	 * line, optionally only the reviewed or the not reviewed ones. The
+	 * students are intersected with the review state of this task, so only
+	 * the matching solutions are visited, in the order of their matriculation
+	 * numbers.
+	 * @param out output to write to
+	 * @param students matriculation numbers of the students
+	 * @param reviewed {@code true} for the reviewed solutions, {@code false}
+	 *        for the others, or null for all solutions
+	 * @throws IOException if the output cannot be written
+	 */
+	public void listSolutions(Appendable out, BitSet students, Boolean reviewed)
+			throws IOException {
+		BitSet matNumbers;
+		if (reviewed == null) {
+			matNumbers = (BitSet) this.reviewed.clone();
+			matNumbers.or(this.unreviewed);
+		} else {
+			matNumbers = (BitSet) (reviewed ? this.reviewed : this.unreviewed).clone();
 		}
-		return listSolutions;
+		matNumbers.and(students);
+		for (int i = matNumbers.nextSetBit(0); i >= 0; i = matNumbers.nextSetBit(i + 1)) {
+			this.appendSolution(out, i);
+		}
+	}
+
+	/**
+	 * Writes the solution of the student with his matriculation number and
+	 * name like {@code (12345,name): text} on a line of its own.
+	 * @param out output to write to
+	 * @param matNumber matriculation number of the student
+	 * @throws IOException if the output cannot be written
+	 */
+	public void appendSolution(Appendable out, int matNumber) throws IOException {
+		out.append('(');
+		ReportFormat.appendInt(out, matNumber);
+		out.append(',').append(matSol.getStudent(matNumber).getName()).append("): ")
+				.append(matSol.getSolution(matNumber).getSolutionText());
+		ReportFormat.newLine(out);
 	}
 
 	/**
@@ -113,14 +231,31 @@ public class Task implements AverageGrade {
 	 * @return list of all corrections from this task
 	 */
 	public List<String> listCorrections() {
-		List<String> listCorrections = new ArrayList<String>();
-		for (Integer i : matSol.keySet()) {
-			if (matSol.get(i).getCorrection() != null) {
-				listCorrections.add(matStud.get(i).getMatNumber() + ": "
-						+ matSol.get(i).getCorrection().getGrade());
+		StringBuilder report = new StringBuilder();
+		try {
+			this.listCorrections(report);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return ReportFormat.lines(report);
+	}
+
+	/**
+	 * Writes all corrections of this task with their students and grades,
+	 * one per line.
+	 * @param out output to write to
+	 * @throws IOException if the output cannot be written
+	 */
+	public void listCorrections(Appendable out) throws IOException {
+		for (int i : matSol.sortedKeys()) {
+			Correction correction = matSol.getSolution(i).getCorrection();
+			if (correction != null) {
+				ReportFormat.appendInt(out, i);
+				out.append(": ");
+				ReportFormat.appendInt(out, correction.getGrade());
+				ReportFormat.newLine(out);
 			}
 		}
-		return listCorrections;
 	}
 
 	/**
@@ -128,28 +263,97 @@ public class Task implements AverageGrade {
 	 * @return summary of this task
 	 */
 	public List<String> summaryTask() {
-		List<String> summaryTask = new ArrayList<String>();
-		int submitted = matSol.size();
-		int reviewed = grade[0] + grade[1] + grade[2] + grade[3] + grade[4];
-		double avg = this.averageGrade();
+		StringBuilder report = new StringBuilder();
+		try {
+			this.summaryTask(report);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return ReportFormat.lines(report);
+	}
+
+	/**
+	 * Writes the summary of all students and their grades in this task.
+	 * @param out output to write to
+	 * @throws IOException if the output cannot be written
+	 */
+	public void summaryTask(Appendable out) throws IOException {
+		this.summaryTask(out, false);
+	}
+
+	/**
+	 * Writes the summary of all students and their grades in this task, with
+	 * the details also the median, the quartiles and the percentage of
+	 * failing grades.
+	 * @param out output to write to
+	 * @param detail {@code true} to write the details, {@code false} otherwise
+	 * @throws IOException if the output cannot be written
+	 */
+	public void summaryTask(Appendable out, boolean detail) throws IOException {
+		out.append("submitted: ");
+		ReportFormat.appendInt(out, matSol.size());
+		ReportFormat.newLine(out);
+		appendGrades(out, this.grade);
+		if (detail) {
+			GradeStatistics.appendDetail(out, this.grade);
+		}
+	}
+
+	/**
+	 * Writes the summary of the grades the given tutor has given in this task,
+	 * which contains the number of reviewed, average grade and the
+	 * distribution.
+	 * @param tutor tutor of the grades
+	 * @param out output to write to
+	 * @throws IOException if the output cannot be written
+	 */
+	public void summaryTutor(Tutor tutor, Appendable out) throws IOException {
+		appendGrades(out, this.getGrades(tutor));
+	}
 
-		DecimalFormat df = new DecimalFormat("0.00", DecimalFormatSymbols.getInstance(Locale.US));
-		df.setRoundingMode(RoundingMode.HALF_UP);
+	/**
+	 * Writes the number of reviewed, average grade and the distribution of
+	 * the given grades.
+	 * @param out output to write to
+	 * @param grade amount of each grade, the grade 1 at index 0
+	 * @throws IOException if the output cannot be written
+	 */
+	private static void appendGrades(Appendable out, int[] grade)
+			throws IOException {
+		int reviewed = grade[0] + grade[1] + grade[2] + grade[3] + grade[4];
+		double avg = averageGrade(grade);
 
-		summaryTask.add("submitted: " + Integer.toString(submitted));
-		summaryTask.add("reviewed: " + Integer.toString(reviewed));
+		out.append("reviewed: ");
+		ReportFormat.appendInt(out, reviewed);
+		ReportFormat.newLine(out);
+		out.append("average grade: ");
 		if (avg > 0) {
-			summaryTask.add("average grade: " + df.format(avg));
+			ReportFormat.appendGrade(out, avg);
 		} else {
-			summaryTask.add("average grade: -");
+			out.append('-');
+		}
+		ReportFormat.newLine(out);
+		out.append("distribution: ");
+		for (int i = 0; i < grade.length; i++) {
+			if (i > 0) {
+				out.append(", ");
+			}
+			ReportFormat.appendInt(out, grade[i]);
+			out.append('x');
+			ReportFormat.appendInt(out, i + 1);
 		}
-		summaryTask.add("distribution: " + Integer.toString(grade[0]) + "x1, "
-				+ Integer.toString(grade[1]) + "x2, "
-				+ Integer.toString(grade[2]) + "x3, "
-				+ Integer.toString(grade[3]) + "x4, "
-				+ Integer.toString(grade[4]) + "x5");
+		ReportFormat.newLine(out);
+	}
 
-		return summaryTask;
+	/**
+	 * Writes the task id and description like {@link #toString()}.
+	 * @param out output to write to
+	 * @throws IOException if the output cannot be written
+	 */
+	public void appendTo(Appendable out) throws IOException {
+		out.append("task id(");
+		ReportFormat.appendInt(out, this.taskNumber);
+		out.append("): ").append(this.description);
 	}
 
 	/**
@@ -176,6 +380,121 @@ public class Task implements AverageGrade {
 		this.grade[grade - 1]--;
 	}
 
+	/**
+	 * Adds the given amounts of grades, used to apply a batch of reviews.
+	 * @param amounts amount of each grade to add, may be negative, the grade 1
+	 *        at index 0
+	 */
+	public void addGrades(int[] amounts) {
+		for (int i = 0; i < this.grade.length; i++) {
+			this.grade[i] += amounts[i];
+		}
+	}
+
+	/**
+	 * Increments a amount of grades the given tutor has given in this task.
+	 * @param tutor tutor of the grade
+	 * @param grade grade
+	 */
+	public void incGrade(Tutor tutor, int grade) {
+		if (grade < 1 || grade > 5) {
+			throw new IllegalArgumentException(
+					"Error! Grade must be between 1 and 5.");
+		}
+		this.tutorGrades(tutor)[grade - 1]++;
+	}
+
+	/**
+	 * Decrements a amount of grades the given tutor has given in this task.
+	 * @param tutor tutor of the grade
+	 * @param grade grade
+	 */
+	public void decGrade(Tutor tutor, int grade) {
+		if (grade < 1 || grade > 5) {
+			throw new IllegalArgumentException(
+					"Error! Grade must be between 1 and 5.");
+		}
+		this.tutorGrades(tutor)[grade - 1]--;
+	}
+
+	/**
+	 * Adds the given amounts of grades the given tutor has given in this task,
+	 * used to apply a batch of reviews.
+	 * @param tutor tutor of the grades
+	 * @param amounts amount of each grade to add, may be negative, the grade 1
+	 *        at index 0
+	 */
+	public void addGrades(Tutor tutor, int[] amounts) {
+		int[] tutorGrades = this.tutorGrades(tutor);
+		for (int i = 0; i < tutorGrades.length; i++) {
+			tutorGrades[i] += amounts[i];
+		}
+	}
+
+	/**
+	 * Returns a copy of the amount of all grades between 1 and 5 the given
+	 * tutor has given in this task.
+	 * @param tutor tutor of the grades
+	 * @return amount of each grade, the grade 1 at index 0
+	 */
+	public int[] getGrades(Tutor tutor) {
+		int[] tutorGrades = this.tutorGrade.get(tutor);
+		return tutorGrades != null ? tutorGrades.clone() : new int[5];
+	}
+
+	/**
+	 * Returns the average grade the given tutor has given in this task.
+	 * @param tutor tutor of the grades
+	 * @return average grade of the tutor, or a negative number if the tutor
+	 *         has not given any grade in this task
+	 */
+	public double averageGrade(Tutor tutor) {
+		int[] tutorGrades = this.tutorGrade.get(tutor);
+		return tutorGrades != null ? averageGrade(tutorGrades) : -1;
+	}
+
+	/**
+	 * Returns the amounts of grades of the given tutor in this task, created
+	 * at the first use.
+	 * @param tutor tutor of the grades
+	 * @return amount of each grade, the grade 1 at index 0
+	 */
+	private int[] tutorGrades(Tutor tutor) {
+		int[] tutorGrades = this.tutorGrade.get(tutor);
+		if (tutorGrades == null) {
+			tutorGrades = new int[5];
+			this.tutorGrade.put(tutor, tutorGrades);
+		}
+		return tutorGrades;
+	}
+
+	/**
+	 * Returns a copy of the amount of all grades between 1 and 5 from this
+	 * task, used to write snapshots.
+	 * @return amount of each grade, the grade 1 at index 0
+	 */
+	int[] getGrades() {
+		return this.grade.clone();
+	}
+
+	/**
+	 * Sets the amount of all grades between 1 and 5 from this task, used to
+	 * read snapshots.
+	 * @param grades amount of each grade, the grade 1 at index 0
+	 */
+	void setGrades(int[] grades) {
+		System.arraycopy(grades, 0, this.grade, 0, this.grade.length);
+	}
+
+	/**
+	 * Returns the solutions of this task with their students. The map is not
+	 * copied, it is used to write and read snapshots.
+	 * @return solutions of this task
+	 */
+	SubmissionMap getSubmissions() {
+		return this.matSol;
+	}
+
 	/**
 	 * Returns the average grade of this object. The average grade is a
 	 * non-negative double value. A negative value is returned, if no average
@@ -183,6 +502,15 @@ public class Task implements AverageGrade {
 	 * @return average grade of this object, or a negative number
 	 */
 	public double averageGrade() {
+		return averageGrade(this.grade);
+	}
+
+	/**
+	 * Returns the average of the given grades.
+	 * @param grade amount of each grade, the grade 1 at index 0
+	 * @return average grade, or a negative number if there is no grade
+	 */
+	private static double averageGrade(int[] grade) {
 		double result = 0;
 		double counter = 0;
 		for (int i = 0; i < grade.length; i++) {
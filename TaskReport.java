@@ -0,0 +1,116 @@
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class writes the reports of a range of tasks in parallel. The range is
+ * split in halves until a single task remains, whose report is written into a
+ * block of its own. The caller writes the blocks in the order of the tasks,
+ * so the output is the same as the one of the sequential report.
+ * <p>
+ * No task may be added while their reports are written. Each report is
+ * written under the lock of its task, so submits and reviews go on.
+ * @author Florian Mueller
+ */
+public class TaskReport extends RecursiveAction {
+
+	/** serial version of this class */
+	private static final long serialVersionUID = 1L;
+
+	/** all tasks */
+	private final List<Task> tasks;
+
+	/** reports of the tasks of the range, the first task at index 0 */
+	private final StringBuilder[] blocks;
+
+	/** index of the first task of the range in the blocks */
+	private final int offset;
+
+	/** index of the first task of the range */
+	private final int from;
+
+	/** index behind the last task of the range */
+	private final int to;
+
+	/** {@code true} for the summary of the tasks, {@code false} for the results */
+	private final boolean summary;
+
+	/** {@code true} for the summary with its details, {@code false} otherwise */
+	private final boolean detail;
+
+	/**
+	 * Constructs the report of the given range of tasks.
+	 * @param tasks all tasks
+	 * @param from index of the first task of the range
+	 * @param to index behind the last task of the range
+	 * @param blocks reports of the tasks of the range, of length to - from
+	 * @param summary {@code true} for summary-task, {@code false} for results
+	 * @param detail {@code true} for the summary with its details,
+	 *        {@code false} otherwise
+	 */
+	public TaskReport(List<Task> tasks, int from, int to, StringBuilder[] blocks,
+			boolean summary, boolean detail) {
+		this(tasks, from, to, blocks, from, summary, detail);
+	}
+
+	/**
+	 * Constructs the report of a part of the given range of tasks.
+	 * @param tasks all tasks
+	 * @param from index of the first task of the part
+	 * @param to index behind the last task of the part
+	 * @param blocks reports of the tasks of the whole range
+	 * @param offset index of the first task of the whole range
+	 * @param summary {@code true} for summary-task, {@code false} for results
+	 * @param detail {@code true} for the summary with its details,
+	 *        {@code false} otherwise
+	 */
+	private TaskReport(List<Task> tasks, int from, int to, StringBuilder[] blocks,
+			int offset, boolean summary, boolean detail) {
+		this.tasks = tasks;
+		this.from = from;
+		this.to = to;
+		this.blocks = blocks;
+		this.offset = offset;
+		this.summary = summary;
+		this.detail = detail;
+	}
+
+	/**
+	 * Writes the reports of the range, splitting it until a single task
+	 * remains.
+	 */
+	protected void compute() {
+		if (to - from > 1) {
+			int middle = (from + to) >>> 1;
+			invokeAll(new TaskReport(tasks, from, middle, blocks, offset, summary, detail),
+					new TaskReport(tasks, middle, to, blocks, offset, summary, detail));
+		} else if (to > from) {
+			blocks[from - offset] = this.write(tasks.get(from));
+		}
+	}
+
+	/**
+	 * Writes the report of one task, headed by the task id and description,
+	 * under the lock of the task.
+	 * @param task task to report
+	 * @return report of the task
+	 */
+	private StringBuilder write(Task task) {
+		StringBuilder block = new StringBuilder();
+		try {
+			synchronized (task) {
+				task.appendTo(block);
+				ReportFormat.newLine(block);
+				if (summary) {
+					task.summaryTask(block, detail);
+				} else {
+					task.listCorrections(block);
+				}
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return block;
+	}
+
+}
@@ -0,0 +1,69 @@
+import java.util.concurrent.locks.Lock;
+
+/**
+ * This class times a call of an operation which holds a lock, so the timing
+ * is written once instead of in every operation. It is used in a
+ * try-with-resources statement: the lock is taken when the call starts and
+ * released when the statement ends, then the latency is recorded, the
+ * waiting for the lock included. A call which ends without
+ * {@link #done()}, that is by an exception, is recorded as failed.
+ * @author Florian Mueller
+ */
+public class TimedCall implements AutoCloseable {
+
+	/** histogram of the operation */
+	private final LatencyHistogram histogram;
+
+	/** lock held during the call, null if the call takes its locks itself */
+	private final Lock lock;
+
+	/** value of {@link System#nanoTime()} at the start of the call */
+	private final long start;
+
+	/** whether the call succeeded */
+	private boolean done;
+
+	/**
+	 * Starts a call which takes its locks itself.
+	 * @param histogram histogram of the operation
+	 */
+	public TimedCall(LatencyHistogram histogram) {
+		this.histogram = histogram;
+		this.lock = null;
+		this.start = System.nanoTime();
+	}
+
+	/**
+	 * Starts a call and waits for the lock.
+	 * @param histogram histogram of the operation
+	 * @param lock lock to hold during the call
+	 */
+	public TimedCall(LatencyHistogram histogram, Lock lock) {
+		this.histogram = histogram;
+		this.lock = lock;
+		this.start = System.nanoTime();
+		lock.lock();
+	}
+
+	/**
+	 * Marks the call as succeeded. It is called right before the call
+	 * returns.
+	 */
+	public void done() {
+		this.done = true;
+	}
+
+	/**
+	 * Releases the lock and records the call.
+	 */
+	public void close() {
+		if (lock != null) {
+			lock.unlock();
+		}
+		if (!done) {
+			histogram.recordError();
+		}
+		histogram.recordSince(start);
+	}
+
+}
@@ -1,5 +1,9 @@
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 /**
  * This class represents the tutors of the praktomat. It stores and administers
@@ -12,11 +16,23 @@ public class Tutor implements Comparable<Tutor>, AverageGrade {
 	private String name;
 
 	/** amount of all grades between 1 and 5 given by this tutor */
-	private int[] grade;
+	private AtomicIntegerArray grade;
 
 	/** list of all students from this tutor */
 	private List<Student> students;
 
+	/** read-only view of the students from this tutor */
+	private List<Student> studentsView;
+
+	/** matriculation numbers of the students from this tutor */
+	private BitSet matNumbers;
+
+	/**
+	 * submitted solutions of this tutor's students without review, the
+	 * oldest first; locked by itself
+	 */
+	private LinkedHashMap<Solution, PendingReview> pendingReviews;
+
 	/**
 	 * Constructs a new tutor with his name.
 	 * @param name name of tutor is his id.
@@ -24,7 +40,10 @@ public class Tutor implements Comparable<Tutor>, AverageGrade {
 	public Tutor(String name) {
 		this.name = name;
 		this.students = new ArrayList<Student>();
-		this.grade = new int[5];
+		this.studentsView = Collections.unmodifiableList(students);
+		this.matNumbers = new BitSet();
+		this.grade = new AtomicIntegerArray(5);
+		this.pendingReviews = new LinkedHashMap<Solution, PendingReview>();
 	}
 
 	/**
@@ -49,19 +68,26 @@ public class Tutor implements Comparable<Tutor>, AverageGrade {
 	 */
 	public void addStudent(Student student) {
 		students.add(student);
+		matNumbers.set(student.getMatNumber());
 	}
 
 	/**
-	 * Returns the list of students from this tutor.
-	 * @return list of students from this tutor
+	 * Returns the list of students from this tutor. The list is a read-only
+	 * view which reflects later changes, it is not copied on each call.
+	 * @return read-only list of students from this tutor
 	 */
 	public List<Student> getStudents() {
-		List<Student> studentsFromTheTutor = new ArrayList<Student>();
+		return this.studentsView;
+	}
 
-		for (Student s : students) {
-			studentsFromTheTutor.add(new Student(s.getName(), s.getMatNumber()));
-		}
-		return studentsFromTheTutor;
+	/**
+	 * Returns the matriculation numbers of the students from this tutor, to
+	 * intersect them with the review state of a task. The set must not be
+	 * changed.
+	 * @return matriculation numbers of the students from this tutor
+	 */
+	BitSet getMatNumbers() {
+		return this.matNumbers;
 	}
 
 	/**
@@ -70,7 +96,62 @@ public class Tutor implements Comparable<Tutor>, AverageGrade {
 	 * @return {@code true} if there exists the student, {@code false} otherwise
 	 */
 	public boolean containsStudent(Student student) {
-		return students.contains(student);
+		return matNumbers.get(student.getMatNumber());
+	}
+
+	/**
+	 * Returns the amount of submitted solutions which are not reviewed yet.
+	 * @return amount of missing reviews of this tutor
+	 */
+	public int getMissingReviews() {
+		synchronized (pendingReviews) {
+			return pendingReviews.size();
+		}
+	}
+
+	/**
+	 * Queues a submitted solution of a student of this tutor for review.
+	 * @param pendingReview solution with its task and student
+	 */
+	public void addPendingReview(PendingReview pendingReview) {
+		synchronized (pendingReviews) {
+			pendingReviews.put(pendingReview.getSolution(), pendingReview);
+		}
+	}
+
+	/**
+	 * Removes a solution which is reviewed for the first time from the queue.
+	 * @param solution reviewed solution
+	 */
+	public void removePendingReview(Solution solution) {
+		synchronized (pendingReviews) {
+			if (pendingReviews.remove(solution) == null) {
+				throw new IllegalStateException("Error! No review is missing.");
+			}
+		}
+	}
+
+	/**
+	 * Returns the oldest submitted solution without review.
+	 * @return the solution with its task and student, or null if all
+	 *         solutions are reviewed
+	 */
+	public PendingReview nextPendingReview() {
+		synchronized (pendingReviews) {
+			return pendingReviews.isEmpty() ? null
+					: pendingReviews.values().iterator().next();
+		}
+	}
+
+	/**
+	 * Returns the submitted solutions without review to write a snapshot.
+	 * @return copy of the solutions with their tasks and students, the oldest
+	 *         first
+	 */
+	List<PendingReview> getPendingReviews() {
+		synchronized (pendingReviews) {
+			return new ArrayList<PendingReview>(pendingReviews.values());
+		}
 	}
 
 	/**
@@ -82,7 +163,7 @@ public class Tutor implements Comparable<Tutor>, AverageGrade {
 			throw new IllegalArgumentException(
 					"Error! Grade must be between 1 and 5.");
 		}
-		this.grade[grade - 1]++;
+		this.grade.incrementAndGet(grade - 1);
 	}
 
 	/**
@@ -94,7 +175,44 @@ public class Tutor implements Comparable<Tutor>, AverageGrade {
 			throw new IllegalArgumentException(
 					"Error! Grade must be between 1 and 5.");
 		}
-		this.grade[grade - 1]--;
+		this.grade.decrementAndGet(grade - 1);
+	}
+
+	/**
+	 * Adds the given amounts of grades, used to apply a batch of reviews.
+	 * @param amounts amount of each grade to add, may be negative, the grade 1
+	 *        at index 0
+	 */
+	public void addGrades(int[] amounts) {
+		for (int i = 0; i < this.grade.length(); i++) {
+			if (amounts[i] != 0) {
+				this.grade.addAndGet(i, amounts[i]);
+			}
+		}
+	}
+
+	/**
+	 * Returns a copy of the amount of all grades between 1 and 5 given by this tutor,
+	 * used to write snapshots.
+	 * @return amount of each grade, the grade 1 at index 0
+	 */
+	int[] getGrades() {
+		int[] grades = new int[grade.length()];
+		for (int i = 0; i < grades.length; i++) {
+			grades[i] = grade.get(i);
+		}
+		return grades;
+	}
+
+	/**
+	 * Sets the amount of all grades between 1 and 5 given by this tutor, used to read
+	 * snapshots.
+	 * @param grades amount of each grade, the grade 1 at index 0
+	 */
+	void setGrades(int[] grades) {
+		for (int i = 0; i < grades.length; i++) {
+			grade.set(i, grades[i]);
+		}
 	}
 
 	/**
@@ -106,9 +224,10 @@ public class Tutor implements Comparable<Tutor>, AverageGrade {
 	public double averageGrade() {
 		double result = 0;
 		double counter = 0;
-		for (int i = 0; i < grade.length; i++) {
-			counter = counter + grade[i] * (i + 1);
-			result = result + grade[i];
+		for (int i = 0; i < grade.length(); i++) {
+			int amount = grade.get(i);
+			counter = counter + amount * (i + 1);
+			result = result + amount;
 		}
 		if (result != 0) {
 			result = counter / result;
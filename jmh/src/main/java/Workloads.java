@@ -0,0 +1,715 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import praktomat.jmh.Case;
+
+/**
+ * This class creates the cases of the benchmarks in the package
+ * {@code praktomat.jmh}. It has no package like the praktomat, so it can
+ * refer to the praktomat, which the benchmarks cannot.
+ * <p>
+ * A cohort of students is divided among {@value #TUTORS} tutors. Each student
+ * submits to a share of the tasks so that a cohort has at most
+ * {@value #MAX_SOLUTIONS} solutions, four of five solutions are reviewed.
+ * @author Florian Mueller
+ */
+public final class Workloads {
+
+	/** maximum amount of solutions of a cohort */
+	private static final int MAX_SOLUTIONS = 1000000;
+
+	/** amount of reviews of a batch of the batch review case */
+	private static final int REVIEW_BATCH = 50;
+
+	/** amount of tutors of a cohort */
+	private static final int TUTORS = 20;
+
+	/** amount of students of the lookup case */
+	private static final int LOOKUP_STUDENTS = 100;
+
+	/** amount of commands of the parse case */
+	private static final int COMMANDS = 100000;
+
+	/**
+	 * Private Constructor. This is a Utility class that should not be
+	 * instantiated.
+	 */
+	private Workloads() {
+	}
+
+	/**
+	 * Creates the case of the given operation.
+	 * @param operation name of the operation
+	 * @param students amount of students
+	 * @param tasks amount of tasks
+	 * @param threads amount of threads of the parallel reports
+	 * @return case of the operation
+	 * @throws IOException if the journal or the snapshot of a case cannot be
+	 *         written
+	 */
+	public static Case create(String operation, int students, int tasks,
+			int threads) throws IOException {
+		if ("addStudent".equals(operation)) {
+			return addStudents(students);
+		} else if ("importStudents".equals(operation)) {
+			return importStudents(students);
+		} else if ("submit".equals(operation)) {
+			return submits(students, tasks);
+		} else if ("importSubmissions".equals(operation)) {
+			return importSubmissions(students, tasks);
+		} else if ("review".equals(operation)) {
+			return reviews(students, tasks, false);
+		} else if ("reReview".equals(operation)) {
+			return reviews(students, tasks, true);
+		} else if ("reviewBatch".equals(operation)) {
+			return reviewBatches(students, tasks);
+		} else if ("listStudents".equals(operation)) {
+			return report(students, tasks, 0);
+		} else if ("listSolutions".equals(operation)) {
+			return report(students, tasks, 1);
+		} else if ("results".equals(operation)) {
+			return report(students, tasks, 2);
+		} else if ("summaryTask".equals(operation)) {
+			return report(students, tasks, 3);
+		} else if ("summaryStudent".equals(operation)) {
+			return report(students, tasks, 4);
+		} else if ("summaryTutor".equals(operation)) {
+			return report(students, tasks, 5);
+		} else if ("compareTutors".equals(operation)) {
+			return report(students, tasks, 6);
+		} else if ("resultsStreamed".equals(operation)) {
+			return streamedResults(students, tasks);
+		} else if ("resultsParallel".equals(operation)) {
+			return parallelReport(students, tasks, threads, false);
+		} else if ("summaryTaskParallel".equals(operation)) {
+			return parallelReport(students, tasks, threads, true);
+		} else if ("listSolutionsText".equals(operation)) {
+			return codeReport(students, false);
+		} else if ("listSolutionsCompressed".equals(operation)) {
+			return codeReport(students, true);
+		} else if ("containsSolution".equals(operation)) {
+			return lookups(tasks);
+		} else if ("parseCommand".equals(operation)) {
+			return parse();
+		} else if ("journalReplay".equals(operation)) {
+			return journalReplay(students, tasks);
+		} else if ("snapshotRead".equals(operation)) {
+			return snapshotRead(students, tasks);
+		} else if ("dedup".equals(operation)) {
+			return dedup(students, tasks);
+		}
+		throw new IllegalArgumentException("Error! Unknown operation " + operation + ".");
+	}
+
+	/**
+	 * Returns the stride of the submissions, so that a cohort has at most
+	 * {@value #MAX_SOLUTIONS} solutions.
+	 * @param students amount of students
+	 * @param tasks amount of tasks
+	 * @return every stride-th student submits to a task
+	 */
+	private static int stride(int students, int tasks) {
+		return (int) Math.max(1, (long) students * tasks / MAX_SOLUTIONS);
+	}
+
+	/**
+	 * Checks whether the student submits a solution to the task.
+	 * @param matNumber matriculation number of the student
+	 * @param taskId task id of the task
+	 * @param stride every stride-th student submits to a task
+	 * @return {@code true} if the student submits, {@code false} otherwise
+	 */
+	private static boolean submits(int matNumber, int taskId, int stride) {
+		return (matNumber + taskId) % stride == 0;
+	}
+
+	/**
+	 * Checks whether the solution of the student to the task is reviewed.
+	 * @param matNumber matriculation number of the student
+	 * @param taskId task id of the task
+	 * @return {@code true} if the solution is reviewed, {@code false} otherwise
+	 */
+	private static boolean reviewed(int matNumber, int taskId) {
+		return (matNumber + 2 * taskId) % 5 != 0;
+	}
+
+	/**
+	 * Builds a cohort of students divided among the tutors.
+	 * @param students amount of students
+	 * @param tasks amount of tasks
+	 * @param stride every stride-th student submits to a task
+	 * @param submitted whether the students submit their solutions
+	 * @param reviewed whether the solutions are reviewed
+	 * @return praktomat with the cohort
+	 */
+	private static Praktomat cohort(int students, int tasks, int stride,
+			boolean submitted, boolean reviewed) {
+		return cohort(new Praktomat(), students, tasks, stride, submitted,
+				reviewed);
+	}
+
+	/**
+	 * Adds a cohort of students divided among the tutors to the praktomat.
+	 * @param praktomat praktomat to add the cohort to
+	 * @param students amount of students
+	 * @param tasks amount of tasks
+	 * @param stride every stride-th student submits to a task
+	 * @param submitted whether the students submit their solutions
+	 * @param reviewed whether the solutions are reviewed
+	 * @return the praktomat
+	 */
+	private static Praktomat cohort(Praktomat praktomat, int students,
+			int tasks, int stride, boolean submitted, boolean reviewed) {
+		for (int m = 0; m < students; m++) {
+			if (m % (students / TUTORS + 1) == 0) {
+				praktomat.addTutor("tutor" + (char) ('a' + m / (students / TUTORS + 1)));
+			}
+			praktomat.addStudent(m, "student");
+		}
+		for (int t = 1; t <= tasks; t++) {
+			praktomat.addTask("task");
+		}
+		for (int t = 1; t <= tasks && submitted; t++) {
+			for (int m = 0; m < students; m++) {
+				if (submits(m, t, stride)) {
+					praktomat.submit(t, m, "solution");
+					if (reviewed && reviewed(m, t)) {
+						praktomat.review(t, m, 1 + (m + t) % 5, "comment");
+					}
+				}
+			}
+		}
+		return praktomat;
+	}
+
+	/**
+	 * Builds a reviewed cohort, used by the reports.
+	 * @param students amount of students
+	 * @param tasks amount of tasks
+	 * @return praktomat with the cohort
+	 */
+	private static Praktomat reviewedCohort(int students, int tasks) {
+		return cohort(students, tasks, stride(students, tasks), true, true);
+	}
+
+	/**
+	 * Case adding all students of a cohort.
+	 * @param students amount of students
+	 * @return case
+	 */
+	private static Case addStudents(final int students) {
+		return new Case() {
+			private Praktomat praktomat;
+
+			public void setUp() {
+				praktomat = new Praktomat();
+				praktomat.addTutor("tutor");
+			}
+
+			public long run() {
+				for (int m = 0; m < students; m++) {
+					praktomat.addStudent(m, "student");
+				}
+				return students;
+			}
+		};
+	}
+
+	/**
+	 * Case importing all students of a cohort from a CSV file in memory.
+	 * @param students amount of students
+	 * @return case
+	 */
+	private static Case importStudents(final int students) {
+		final StringBuilder csv = new StringBuilder();
+		for (int m = 0; m < students; m++) {
+			csv.append(String.format("tutor,%05d,student%n", m));
+		}
+		return new Case() {
+			private Praktomat praktomat;
+
+			public void setUp() {
+				praktomat = new Praktomat();
+			}
+
+			public long run() throws IOException {
+				return CsvImport.importStudents(new StringReader(csv.toString()),
+						praktomat, System.out);
+			}
+		};
+	}
+
+	/**
+	 * Case importing all solutions of a cohort from a CSV file in memory.
+	 * @param students amount of students
+	 * @param tasks amount of tasks
+	 * @return case
+	 */
+	private static Case importSubmissions(final int students, final int tasks) {
+		final int stride = stride(students, tasks);
+		final StringBuilder csv = new StringBuilder();
+		for (int t = 1; t <= tasks; t++) {
+			for (int m = 0; m < students; m++) {
+				if (submits(m, t, stride)) {
+					csv.append(String.format("%d,%05d,solution%n", t, m));
+				}
+			}
+		}
+		return new Case() {
+			private Praktomat praktomat;
+
+			public void setUp() {
+				praktomat = cohort(students, tasks, stride, false, false);
+			}
+
+			public long run() throws IOException {
+				return CsvImport.importSubmissions(new StringReader(csv.toString()),
+						praktomat, System.out);
+			}
+		};
+	}
+
+	/**
+	 * Case submitting all solutions of a cohort.
+	 * @param students amount of students
+	 * @param tasks amount of tasks
+	 * @return case
+	 */
+	private static Case submits(final int students, final int tasks) {
+		final int stride = stride(students, tasks);
+		return new Case() {
+			private Praktomat praktomat;
+
+			public void setUp() {
+				praktomat = cohort(students, tasks, stride, false, false);
+			}
+
+			public long run() {
+				long operations = 0;
+				for (int t = 1; t <= tasks; t++) {
+					for (int m = 0; m < students; m++) {
+						if (submits(m, t, stride)) {
+							praktomat.submit(t, m, "solution");
+							operations++;
+						}
+					}
+				}
+				return operations;
+			}
+		};
+	}
+
+	/**
+	 * Case reviewing all solutions of a cohort.
+	 * @param students amount of students
+	 * @param tasks amount of tasks
+	 * @param again whether the solutions are already reviewed
+	 * @return case
+	 */
+	private static Case reviews(final int students, final int tasks,
+			final boolean again) {
+		final int stride = stride(students, tasks);
+		return new Case() {
+			private Praktomat praktomat;
+
+			public void setUp() {
+				praktomat = cohort(students, tasks, stride, true, false);
+				if (again) {
+					this.reviewAll(1);
+				}
+			}
+
+			public long run() {
+				return this.reviewAll(2);
+			}
+
+			private long reviewAll(int offset) {
+				long operations = 0;
+				for (int t = 1; t <= tasks; t++) {
+					for (int m = 0; m < students; m++) {
+						if (submits(m, t, stride)) {
+							praktomat.review(t, m, 1 + (m + t + offset) % 5, "comment");
+							operations++;
+						}
+					}
+				}
+				return operations;
+			}
+		};
+	}
+
+	/**
+	 * Case reviewing all solutions of a cohort in batches of
+	 * {@value #REVIEW_BATCH} reviews, to compare with single reviews.
+	 * @param students amount of students
+	 * @param tasks amount of tasks
+	 * @return case
+	 */
+	private static Case reviewBatches(final int students, final int tasks) {
+		final int stride = stride(students, tasks);
+		return new Case() {
+			private final int[] taskIds = new int[REVIEW_BATCH];
+			private final int[] matNumbers = new int[REVIEW_BATCH];
+			private final int[] grades = new int[REVIEW_BATCH];
+			private final String[] comments = new String[REVIEW_BATCH];
+			private Praktomat praktomat;
+
+			public void setUp() {
+				praktomat = cohort(students, tasks, stride, true, false);
+			}
+
+			public long run() {
+				long operations = 0;
+				int count = 0;
+				for (int t = 1; t <= tasks; t++) {
+					for (int m = 0; m < students; m++) {
+						if (submits(m, t, stride)) {
+							taskIds[count] = t;
+							matNumbers[count] = m;
+							grades[count] = 1 + (m + t + 2) % 5;
+							comments[count] = "comment";
+							if (++count == REVIEW_BATCH) {
+								praktomat.reviewBatch(taskIds, matNumbers, grades, comments, count);
+								count = 0;
+							}
+							operations++;
+						}
+					}
+				}
+				praktomat.reviewBatch(taskIds, matNumbers, grades, comments, count);
+				return operations;
+			}
+		};
+	}
+
+	/**
+	 * Case creating a report of a reviewed cohort. The cohort is built once,
+	 * as the reports do not change it.
+	 * @param students amount of students
+	 * @param tasks amount of tasks
+	 * @param report 0 list-students, 1 list-solutions of task 1, 2 results,
+	 *        3 summary-task, 4 summary-student, 5 summary-tutor,
+	 *        6 compare-tutors
+	 * @return case
+	 */
+	private static Case report(final int students, final int tasks,
+			final int report) {
+		return new Case() {
+			private Praktomat praktomat;
+
+			public void setUp() {
+				if (praktomat == null) {
+					praktomat = reviewedCohort(students, tasks);
+				}
+			}
+
+			public long run() {
+				List<String> lines;
+				if (report == 0) {
+					lines = praktomat.listStudents();
+				} else if (report == 1) {
+					lines = praktomat.listSolutions(1);
+				} else if (report == 2) {
+					lines = praktomat.results();
+				} else if (report == 3) {
+					lines = praktomat.summaryTask();
+				} else if (report == 4) {
+					lines = praktomat.summaryStudent();
+				} else if (report == 5) {
+					lines = praktomat.summaryTutor();
+				} else {
+					lines = praktomat.compareTutors();
+				}
+				return lines.size();
+			}
+		};
+	}
+
+	/**
+	 * Case writing the results of a reviewed cohort to an output which only
+	 * counts the characters.
+	 * @param students amount of students
+	 * @param tasks amount of tasks
+	 * @return case
+	 */
+	private static Case streamedResults(final int students, final int tasks) {
+		return new Case() {
+			private Praktomat praktomat;
+
+			private long length;
+
+			private final Appendable counter = new Appendable() {
+				public Appendable append(CharSequence csq) {
+					length += csq.length();
+					return this;
+				}
+
+				public Appendable append(CharSequence csq, int start, int end) {
+					length += end - start;
+					return this;
+				}
+
+				public Appendable append(char c) {
+					length++;
+					return this;
+				}
+			};
+
+			public void setUp() {
+				if (praktomat == null) {
+					praktomat = reviewedCohort(students, tasks);
+				}
+			}
+
+			public long run() throws IOException {
+				length = 0;
+				praktomat.results(counter);
+				return length;
+			}
+		};
+	}
+
+	/**
+	 * Case writing the results or the summary of the tasks of a reviewed
+	 * cohort in parallel.
+	 * @param students amount of students
+	 * @param tasks amount of tasks
+	 * @param threads amount of threads of the pool
+	 * @param summary {@code true} for summary-task, {@code false} for results
+	 * @return case
+	 */
+	private static Case parallelReport(final int students, final int tasks,
+			final int threads, final boolean summary) {
+		return new Case() {
+			private final ForkJoinPool pool = new ForkJoinPool(threads);
+
+			private final StringBuilder out = new StringBuilder();
+
+			private Praktomat praktomat;
+
+			public void setUp() {
+				if (praktomat == null) {
+					praktomat = reviewedCohort(students, tasks);
+				}
+			}
+
+			public long run() throws IOException {
+				out.setLength(0);
+				if (summary) {
+					praktomat.summaryTask(out, pool);
+				} else {
+					praktomat.results(out, pool);
+				}
+				return out.length();
+			}
+
+			public void tearDown() {
+				pool.shutdown();
+			}
+		};
+	}
+
+	/**
+	 * Case listing the solutions of a single task to which every student
+	 * submits a text of about 400 characters of starter code and a line of
+	 * his own.
+	 * @param students amount of students
+	 * @param compressed whether the solution texts are compressed
+	 * @return case
+	 */
+	private static Case codeReport(final int students, final boolean compressed) {
+		return new Case() {
+			private Praktomat praktomat;
+
+			public void setUp() {
+				if (praktomat != null) {
+					return;
+				}
+				praktomat = cohort(new Praktomat(compressed), students, 1, 1,
+						false, false);
+				StringBuilder starter = new StringBuilder();
+				for (int line = 0; line < 8; line++) {
+					starter.append("public class Task { /* complete line ").append(line)
+							.append(" */ }\n");
+				}
+				for (int m = 0; m < students; m++) {
+					praktomat.submit(1, m, starter + "// student " + m);
+				}
+			}
+
+			public long run() {
+				return praktomat.listSolutions(1).size();
+			}
+		};
+	}
+
+	/**
+	 * Case looking up the solutions of {@value #LOOKUP_STUDENTS} students in
+	 * a praktomat with the given amount of tasks.
+	 * @param tasks amount of tasks
+	 * @return case
+	 */
+	private static Case lookups(final int tasks) {
+		return new Case() {
+			private Praktomat praktomat;
+
+			public void setUp() {
+				if (praktomat == null) {
+					praktomat = cohort(LOOKUP_STUDENTS, tasks, 1, true, false);
+				}
+			}
+
+			public long run() {
+				long found = 0;
+				for (int t = 1; t <= tasks; t++) {
+					for (int m = 0; m < LOOKUP_STUDENTS; m++) {
+						if (praktomat.containsSolution(t, m)) {
+							found++;
+						}
+					}
+				}
+				return found;
+			}
+		};
+	}
+
+	/**
+	 * Case parsing and checking {@value #COMMANDS} review commands.
+	 * @return case
+	 */
+	private static Case parse() {
+		final CommandParser command = new CommandParser();
+		final String line = "review 12 12345 3 ok";
+		return new Case() {
+			public long run() {
+				long sum = 0;
+				for (int i = 0; i < COMMANDS; i++) {
+					command.parse(line);
+					if (command.isCommand("review") && command.isTaskNumber(1)
+							&& command.isMatNumber(2)
+							&& command.isDigits(3, '1', '5', 1, 1)) {
+						sum += command.parseInt(1) + command.parseInt(2);
+					}
+				}
+				return sum;
+			}
+		};
+	}
+
+	/**
+	 * Case replaying the journal of a cohort with all its submissions and
+	 * reviews.
+	 * @param students amount of students
+	 * @param tasks amount of tasks
+	 * @return case
+	 * @throws IOException if the journal cannot be written
+	 */
+	private static Case journalReplay(int students, int tasks)
+			throws IOException {
+		final File file = File.createTempFile("benchmark", ".journal");
+		file.deleteOnExit();
+		Journal journal = new Journal(file, Journal.SyncPolicy.OS, 0);
+		try {
+			Praktomat cohort = new Praktomat();
+			cohort.setJournal(journal);
+			cohort(cohort, students, tasks, 1, true, true);
+		} finally {
+			journal.close();
+		}
+		return new Case() {
+			private Praktomat praktomat;
+
+			public void setUp() {
+				praktomat = new Praktomat();
+			}
+
+			public long run() throws IOException {
+				Journal journal = new Journal(file, Journal.SyncPolicy.OS, 0);
+				try {
+					return journal.replay(praktomat);
+				} finally {
+					journal.close();
+				}
+			}
+
+			public void tearDown() {
+				file.delete();
+			}
+		};
+	}
+
+	/**
+	 * Case reading the snapshot of a cohort with all its submissions and
+	 * reviews.
+	 * @param students amount of students
+	 * @param tasks amount of tasks
+	 * @return case
+	 * @throws IOException if the snapshot cannot be written
+	 */
+	private static Case snapshotRead(final int students, int tasks)
+			throws IOException {
+		final File file = File.createTempFile("benchmark", ".snapshot");
+		file.deleteOnExit();
+		Snapshot.write(cohort(students, tasks, 1, true, true), file);
+		return new Case() {
+			public long run() throws IOException {
+				Snapshot.read(file);
+				return students;
+			}
+
+			public void tearDown() {
+				file.delete();
+			}
+		};
+	}
+
+	/**
+	 * Case submitting solutions of which many are equal. Four of ten
+	 * solutions are "ok", three the starter code of their task and three the
+	 * starter code with a line of their own. Each student submits to all
+	 * tasks.
+	 * @param students amount of students
+	 * @param tasks amount of tasks
+	 * @return case
+	 */
+	private static Case dedup(final int students, final int tasks) {
+		final String[] starters = new String[tasks + 1];
+		for (int t = 1; t <= tasks; t++) {
+			StringBuilder starter = new StringBuilder();
+			for (int line = 0; line < 8; line++) {
+				starter.append("public class Task").append(t)
+						.append(" { /* complete line ").append(line).append(" */ }\n");
+			}
+			starters[t] = starter.toString();
+		}
+		return new Case() {
+			private Praktomat praktomat;
+
+			public void setUp() {
+				praktomat = cohort(students, tasks, 1, false, false);
+			}
+
+			public long run() {
+				for (int t = 1; t <= tasks; t++) {
+					for (int m = 0; m < students; m++) {
+						int kind = (m * 31 + t) % 10;
+						String text;
+						if (kind < 4) {
+							text = new String("ok");
+						} else if (kind < 7) {
+							text = new String(starters[t]);
+						} else {
+							text = starters[t] + "// student " + m;
+						}
+						praktomat.submit(t, m, text);
+					}
+				}
+				return (long) students * tasks;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,64 @@
+package praktomat.jmh;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * This class is a measured case of a benchmark. Only the run is measured,
+ * the set up and the tear down are not.
+ * <p>
+ * The praktomat has no package, so a benchmark, which JMH needs in a package,
+ * cannot refer to it. The cases are created by the class {@code Workloads}
+ * without package instead, which is looked up by its name.
+ * @author Florian Mueller
+ */
+public abstract class Case {
+
+	/** name of the class which creates the cases */
+	private static final String WORKLOADS = "Workloads";
+
+	/**
+	 * Creates the case of the given operation.
+	 * @param operation name of the operation
+	 * @param students amount of students
+	 * @param tasks amount of tasks
+	 * @param threads amount of threads of the parallel reports
+	 * @return case of the operation
+	 * @throws Exception if the case cannot be created
+	 */
+	public static Case create(String operation, int students, int tasks,
+			int threads) throws Exception {
+		Method create = Class.forName(WORKLOADS).getMethod("create",
+				String.class, int.class, int.class, int.class);
+		try {
+			return (Case) create.invoke(null, operation, students, tasks, threads);
+		} catch (InvocationTargetException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Prepares the next run.
+	 * @throws Exception if the case cannot be prepared
+	 */
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * Runs the measured operations once.
+	 * @return a result of the operations, so they cannot be optimized away
+	 * @throws Exception if the operations fail
+	 */
+	public abstract long run() throws Exception;
+
+	/**
+	 * Releases what the case holds after the last run.
+	 * @throws Exception if the case cannot be released
+	 */
+	public void tearDown() throws Exception {
+	}
+
+}
@@ -0,0 +1,68 @@
+package praktomat.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * This class runs a {@link Case} as a JMH benchmark. The subclasses choose
+ * the operations and cohort sizes by their parameters and the mode of the
+ * measurement. The case is prepared before each iteration, so an operation
+ * which changes the praktomat measured once per iteration starts on the same
+ * praktomat each time.
+ * @author Florian Mueller
+ */
+@State(Scope.Thread)
+public abstract class CaseBenchmark {
+
+	/** measured case */
+	private Case measured;
+
+	/**
+	 * Creates the case of the parameters.
+	 * @return case to measure
+	 * @throws Exception if the case cannot be created
+	 */
+	protected abstract Case create() throws Exception;
+
+	/**
+	 * Creates the case at the start of the trial.
+	 * @throws Exception if the case cannot be created
+	 */
+	@Setup(Level.Trial)
+	public void createCase() throws Exception {
+		this.measured = this.create();
+	}
+
+	/**
+	 * Prepares the case before each iteration.
+	 * @throws Exception if the case cannot be prepared
+	 */
+	@Setup(Level.Iteration)
+	public void setUp() throws Exception {
+		this.measured.setUp();
+	}
+
+	/**
+	 * Releases the case at the end of the trial.
+	 * @throws Exception if the case cannot be released
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		this.measured.tearDown();
+	}
+
+	/**
+	 * Runs the case.
+	 * @return result of the case
+	 * @throws Exception if the case fails
+	 */
+	@Benchmark
+	public long run() throws Exception {
+		return this.measured.run();
+	}
+
+}
@@ -0,0 +1,32 @@
+package praktomat.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class measures parsing and checking 100,000 review commands.
+ * @author Florian Mueller
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandBenchmark extends CaseBenchmark {
+
+	/**
+	 * Creates the case of the operation.
+	 * @return case to measure
+	 * @throws Exception if the case cannot be created
+	 */
+	protected Case create() throws Exception {
+		return Case.create("parseCommand", 0, 0, 0);
+	}
+
+}
@@ -0,0 +1,43 @@
+package praktomat.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class measures submitting solutions of which many are equal, as they
+ * are "ok" or the starter code of their task, so the solution store shares
+ * their texts. Each text is a new string, as if it were read from a command.
+ * @author Florian Mueller
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DedupBenchmark extends CaseBenchmark {
+
+	/** amount of students */
+	@Param({"10000"})
+	public int students;
+
+	/** amount of tasks, each student submits to all */
+	@Param({"100"})
+	public int tasks;
+
+	/**
+	 * Creates the case of the operation.
+	 * @return case to measure
+	 * @throws Exception if the case cannot be created
+	 */
+	protected Case create() throws Exception {
+		return Case.create("dedup", students, tasks, 0);
+	}
+
+}
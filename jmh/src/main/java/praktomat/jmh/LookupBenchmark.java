@@ -0,0 +1,38 @@
+package praktomat.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class measures looking up each solution of 100 students, who submit to
+ * all tasks, by the amount of tasks.
+ * @author Florian Mueller
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupBenchmark extends CaseBenchmark {
+
+	/** amount of tasks */
+	@Param({"10", "100", "1000"})
+	public int tasks;
+
+	/**
+	 * Creates the case of the operation.
+	 * @return case to measure
+	 * @throws Exception if the case cannot be created
+	 */
+	protected Case create() throws Exception {
+		return Case.create("containsSolution", 100, tasks, 0);
+	}
+
+}
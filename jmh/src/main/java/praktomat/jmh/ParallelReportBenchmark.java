@@ -0,0 +1,51 @@
+package praktomat.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class measures the results and the summary of the tasks created in
+ * parallel, by the amount of threads. The speedup is the time of a single
+ * thread divided by the time of the others.
+ * @author Florian Mueller
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelReportBenchmark extends CaseBenchmark {
+
+	/** measured operation */
+	@Param({"resultsParallel", "summaryTaskParallel"})
+	public String operation;
+
+	/** amount of threads */
+	@Param({"1", "2", "4", "8"})
+	public int threads;
+
+	/** amount of students */
+	@Param({"100000"})
+	public int students;
+
+	/** amount of tasks */
+	@Param({"500"})
+	public int tasks;
+
+	/**
+	 * Creates the case of the operation.
+	 * @return case to measure
+	 * @throws Exception if the case cannot be created
+	 */
+	protected Case create() throws Exception {
+		return Case.create(operation, students, tasks, threads);
+	}
+
+}
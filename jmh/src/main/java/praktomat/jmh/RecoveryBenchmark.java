@@ -0,0 +1,46 @@
+package praktomat.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class measures restarting a praktomat whose cohort submitted to all
+ * tasks, from its journal and from its snapshot.
+ * @author Florian Mueller
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RecoveryBenchmark extends CaseBenchmark {
+
+	/** measured operation */
+	@Param({"journalReplay", "snapshotRead"})
+	public String operation;
+
+	/** amount of students */
+	@Param({"100000"})
+	public int students;
+
+	/** amount of tasks */
+	@Param({"20"})
+	public int tasks;
+
+	/**
+	 * Creates the case of the operation.
+	 * @return case to measure
+	 * @throws Exception if the case cannot be created
+	 */
+	protected Case create() throws Exception {
+		return Case.create(operation, students, tasks, 0);
+	}
+
+}
@@ -0,0 +1,48 @@
+package praktomat.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class measures the reports of a cohort whose solutions are reviewed
+ * four times out of five. The list of solutions is the one of the first
+ * task.
+ * @author Florian Mueller
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReportBenchmark extends CaseBenchmark {
+
+	/** measured operation */
+	@Param({"listStudents", "listSolutions", "results", "resultsStreamed",
+			"summaryTask", "summaryStudent", "summaryTutor", "compareTutors"})
+	public String operation;
+
+	/** amount of students */
+	@Param({"100", "10000", "100000"})
+	public int students;
+
+	/** amount of tasks */
+	@Param({"10", "500"})
+	public int tasks;
+
+	/**
+	 * Creates the case of the operation.
+	 * @return case to measure
+	 * @throws Exception if the case cannot be created
+	 */
+	protected Case create() throws Exception {
+		return Case.create(operation, students, tasks, 0);
+	}
+
+}
@@ -0,0 +1,43 @@
+package praktomat.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class measures listing the solutions of a task whose texts are about
+ * 400 characters of starter code and a line of each student, with the texts
+ * on the heap and compressed outside the heap.
+ * @author Florian Mueller
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolutionTextBenchmark extends CaseBenchmark {
+
+	/** measured operation */
+	@Param({"listSolutionsText", "listSolutionsCompressed"})
+	public String operation;
+
+	/** amount of students */
+	@Param({"100", "10000", "100000"})
+	public int students;
+
+	/**
+	 * Creates the case of the operation.
+	 * @return case to measure
+	 * @throws Exception if the case cannot be created
+	 */
+	protected Case create() throws Exception {
+		return Case.create(operation, students, 1, 0);
+	}
+
+}
@@ -0,0 +1,42 @@
+package praktomat.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class measures adding all students of a cohort, one by one and as an
+ * import of a CSV file. Each iteration adds them to an empty praktomat once.
+ * @author Florian Mueller
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StudentBenchmark extends CaseBenchmark {
+
+	/** measured operation */
+	@Param({"addStudent", "importStudents"})
+	public String operation;
+
+	/** amount of students */
+	@Param({"100", "10000", "100000"})
+	public int students;
+
+	/**
+	 * Creates the case of the operation.
+	 * @return case to measure
+	 * @throws Exception if the case cannot be created
+	 */
+	protected Case create() throws Exception {
+		return Case.create(operation, students, 0, 0);
+	}
+
+}
@@ -0,0 +1,49 @@
+package praktomat.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class measures submitting and reviewing all solutions of a cohort.
+ * Each student submits to a share of the tasks, so a cohort has at most a
+ * million solutions. Each iteration starts on the same praktomat: without
+ * solutions for the submits, with the solutions for the first reviews and
+ * with the reviewed solutions for the re-reviews.
+ * @author Florian Mueller
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SubmissionBenchmark extends CaseBenchmark {
+
+	/** measured operation */
+	@Param({"submit", "importSubmissions", "review", "reReview", "reviewBatch"})
+	public String operation;
+
+	/** amount of students */
+	@Param({"100", "10000", "100000"})
+	public int students;
+
+	/** amount of tasks */
+	@Param({"10", "500"})
+	public int tasks;
+
+	/**
+	 * Creates the case of the operation.
+	 * @return case to measure
+	 * @throws Exception if the case cannot be created
+	 */
+	protected Case create() throws Exception {
+		return Case.create(operation, students, tasks, 0);
+	}
+
+}